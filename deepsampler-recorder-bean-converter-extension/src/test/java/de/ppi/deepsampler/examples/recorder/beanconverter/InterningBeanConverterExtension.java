@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import de.ppi.deepsampler.persistence.bean.PersistentBeanConverter;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.bean.ext.StandardBeanConverterExtension;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * This {@link de.ppi.deepsampler.persistence.bean.ext.BeanConverterExtension} reduces the heap, that is used by replayed
+ * samples, by sharing equal immutable values.
+ * <p>
+ * Large sample files often contain the same names, numbers or dates many times. By default, each of them is reverted to
+ * a new object. This extension canonicalizes {@link String}s, boxed primitives and the common java.time types during
+ * revert, so that all equal values share one instance.
+ * <p>
+ * The canonical instances are only weakly referenced, so they are released as soon as no replayed sample uses them
+ * anymore. The extension doesn't change the format of sample files, so it can be activated for existing sample files.
+ * java.time values, that have been written in their ISO-8601 format, e.g. by a custom extension, are parsed as well.
+ * <p>
+ * Further immutable types can be interned by subclasses, that override {@link #isProcessable(Class, ParameterizedType)},
+ * or by other extensions that pass their reverted values to {@link #intern(Object)}.
+ */
+public class InterningBeanConverterExtension extends StandardBeanConverterExtension {
+
+    private static final Map<Object, WeakReference<Object>> CANONICAL_VALUES = new WeakHashMap<>();
+
+    private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<>();
+    private static final Map<Class<?>, Function<String, Object>> TIME_PARSERS = new HashMap<>();
+
+    static {
+        WRAPPER_TYPES.put(String.class, String.class);
+        WRAPPER_TYPES.put(Boolean.class, Boolean.class);
+        WRAPPER_TYPES.put(Character.class, Character.class);
+        WRAPPER_TYPES.put(Byte.class, Byte.class);
+        WRAPPER_TYPES.put(Short.class, Short.class);
+        WRAPPER_TYPES.put(Integer.class, Integer.class);
+        WRAPPER_TYPES.put(Long.class, Long.class);
+        WRAPPER_TYPES.put(Float.class, Float.class);
+        WRAPPER_TYPES.put(Double.class, Double.class);
+        WRAPPER_TYPES.put(boolean.class, Boolean.class);
+        WRAPPER_TYPES.put(char.class, Character.class);
+        WRAPPER_TYPES.put(byte.class, Byte.class);
+        WRAPPER_TYPES.put(short.class, Short.class);
+        WRAPPER_TYPES.put(int.class, Integer.class);
+        WRAPPER_TYPES.put(long.class, Long.class);
+        WRAPPER_TYPES.put(float.class, Float.class);
+        WRAPPER_TYPES.put(double.class, Double.class);
+
+        TIME_PARSERS.put(LocalDate.class, LocalDate::parse);
+        TIME_PARSERS.put(LocalTime.class, LocalTime::parse);
+        TIME_PARSERS.put(LocalDateTime.class, LocalDateTime::parse);
+        TIME_PARSERS.put(OffsetDateTime.class, OffsetDateTime::parse);
+        TIME_PARSERS.put(ZonedDateTime.class, ZonedDateTime::parse);
+        TIME_PARSERS.put(Instant.class, Instant::parse);
+        TIME_PARSERS.put(Duration.class, Duration::parse);
+        TIME_PARSERS.put(Period.class, Period::parse);
+    }
+
+    /**
+     * Binds this extension to {@link String}s, primitives, their wrappers and the common java.time types.
+     */
+    @Override
+    public boolean isProcessable(Class<?> beanClass, ParameterizedType beanType) {
+        return WRAPPER_TYPES.containsKey(beanClass) || TIME_PARSERS.containsKey(beanClass);
+    }
+
+    /**
+     * All values are persisted unchanged, so the sample file is written in the default format.
+     */
+    @Override
+    public Object convert(Object originalBean, ParameterizedType beanType, PersistentBeanConverter persistentBeanConverter) {
+        return originalBean;
+    }
+
+    /**
+     * Reverts persistentBean to targetClass and returns the canonical instance of the reverted value.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T revert(Object persistentBean, Class<T> targetClass, ParameterizedType targetType, PersistentBeanConverter persistentBeanConverter) {
+        if (persistentBean == null) {
+            return null;
+        }
+
+        final Function<String, Object> timeParser = TIME_PARSERS.get(targetClass);
+
+        if (timeParser != null && persistentBean instanceof String) {
+            return (T) intern(timeParser.apply((String) persistentBean));
+        }
+
+        return (T) intern(toWrapperType(persistentBean, WRAPPER_TYPES.getOrDefault(targetClass, targetClass)));
+    }
+
+    /**
+     * Returns the canonical instance of value. The first value, that is passed to this method, becomes the canonical
+     * instance of all values that are equal to it, as long as it is referenced anywhere else.
+     *
+     * @param value An immutable value
+     * @param <T>   The type of value
+     * @return The canonical instance, that is equal to value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+
+        synchronized (CANONICAL_VALUES) {
+            final WeakReference<Object> canonicalReference = CANONICAL_VALUES.get(value);
+            final Object canonicalValue = canonicalReference != null ? canonicalReference.get() : null;
+
+            if (canonicalValue != null) {
+                return (T) canonicalValue;
+            }
+
+            CANONICAL_VALUES.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * Releases all canonical instances, e.g. after a large replay.
+     */
+    public static void clearInternedValues() {
+        synchronized (CANONICAL_VALUES) {
+            CANONICAL_VALUES.clear();
+        }
+    }
+
+    /**
+     * Jackson reads JSON-numbers as Integer, Long or Double, depending on their size. So, a number is converted
+     * to the type, that is actually expected by the sampled method.
+     */
+    private static Object toWrapperType(Object persistentBean, Class<?> wrapperType) {
+        if (persistentBean instanceof Number && wrapperType != persistentBean.getClass()) {
+            final Number number = (Number) persistentBean;
+
+            if (wrapperType == Byte.class) {
+                return number.byteValue();
+            } else if (wrapperType == Short.class) {
+                return number.shortValue();
+            } else if (wrapperType == Integer.class) {
+                return number.intValue();
+            } else if (wrapperType == Long.class) {
+                return number.longValue();
+            } else if (wrapperType == Float.class) {
+                return number.floatValue();
+            } else if (wrapperType == Double.class) {
+                return number.doubleValue();
+            }
+        }
+
+        if (persistentBean instanceof String && wrapperType == Character.class) {
+            final String character = (String) persistentBean;
+
+            if (character.length() != 1) {
+                throw new PersistenceException("The value \"" + character + "\" cannot be reverted to a single character.");
+            }
+
+            return character.charAt(0);
+        }
+
+        return persistentBean;
+    }
+}
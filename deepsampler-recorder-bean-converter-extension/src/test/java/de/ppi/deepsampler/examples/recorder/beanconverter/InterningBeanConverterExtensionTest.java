@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.Person;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.junit.PrepareSampler;
+import de.ppi.deepsampler.junit.SampleRootPath;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import de.ppi.deepsampler.junit.UseBeanConverterExtension;
+import de.ppi.deepsampler.junit.UseSamplerFixture;
+import de.ppi.deepsampler.junit.json.LoadSamples;
+import de.ppi.deepsampler.junit.json.SaveSamples;
+import de.ppi.deepsampler.junit5.DeepSamplerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This test shows how the {@link InterningBeanConverterExtension} lets equal values of replayed samples share one
+ * instance.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that the first test can save a sampler, that is read by the
+ * second test.
+ */
+@ExtendWith(DeepSamplerExtension.class)
+@UseSamplerFixture(InterningBeanConverterExtensionTest.InterningCompound.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class InterningBeanConverterExtensionTest {
+
+    public static final Path EXPECTED_RECORDED_FILE = Paths.get("./tmp/samples/sampleWithInternedValues.json");
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    /**
+     * We record two {@link Person}s, that have the same name and the same birthday.
+     */
+    @Test
+    @Order(1)
+    @SaveSamples("sampleWithInternedValues.json")
+    void twoEqualPersonsAreSaved() {
+        // 🧪 WHEN
+        greetingService.createGreeting(1);
+        greetingService.createGreeting(2);
+
+        // 🔬 THEN
+        // The extension doesn't change the format of the sample file. The birthday is written in the default format of
+        // DeepSampler and not as an ISO-8601 String.
+        assertThat(EXPECTED_RECORDED_FILE).content().contains("Geordi La Forge").doesNotContain("2335-02-16");
+    }
+
+    /**
+     * Both {@link Person}s have been reverted separately, but their names and birthdays are the same instances.
+     */
+    @Test
+    @Order(2)
+    @LoadSamples(value = "sampleWithInternedValues.json")
+    void equalValuesShareOneInstance() {
+        // 🧪 WHEN
+        final Person firstPerson = personDao.loadPerson(1);
+        final Person secondPerson = personDao.loadPerson(2);
+
+        // 🔬 THEN
+        assertThat(firstPerson).isNotSameAs(secondPerson);
+        assertThat(firstPerson.getName()).isEqualTo("Geordi La Forge").isSameAs(secondPerson.getName());
+        assertThat(firstPerson.getBirthday()).isSameAs(secondPerson.getBirthday());
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        EXPECTED_RECORDED_FILE.toFile().delete();
+    }
+
+    /**
+     * The {@link InterningBeanConverterExtension} is activated for all tests that use this {@link SamplerFixture}.
+     */
+    @UseBeanConverterExtension(InterningBeanConverterExtension.class)
+    @SampleRootPath("./tmp/samples")
+    public static class InterningCompound implements SamplerFixture {
+
+        @PrepareSampler
+        private PersonDaoImpl personDaoImplSampler;
+
+        @Override
+        public void defineSamplers() {
+            PersistentSample.of(personDaoImplSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import de.ppi.deepsampler.examples.helloworld.Person;
+import de.ppi.deepsampler.persistence.bean.PersistentBeanConverter;
+import de.ppi.deepsampler.persistence.model.PersistentBean;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@link Person}, that is replayed by the {@link LazyPersonBeanConverterExtension}.
+ * <p>
+ * A {@link LazyPerson} keeps the persistent form of a {@link Person}, as it has been read from the sample file. Each
+ * property is reverted the first time it is read. Properties, that are never read by the tested code, are never
+ * reverted.
+ */
+public class LazyPerson extends Person {
+
+    static final String ID = "0$id";
+    static final String NAME = "0$name";
+    static final String BIRTHDAY = "0$birthday";
+
+    private final PersistentBean persistentPerson;
+    private final PersistentBeanConverter persistentBeanConverter;
+
+    private boolean idReverted;
+    private boolean nameReverted;
+    private boolean birthdayReverted;
+    private int revertCount;
+
+    LazyPerson(final PersistentBean persistentPerson, final PersistentBeanConverter persistentBeanConverter) {
+        super(null);
+        this.persistentPerson = persistentPerson;
+        this.persistentBeanConverter = persistentBeanConverter;
+    }
+
+    @Override
+    public int getId() {
+        if (!idReverted) {
+            final Object id = persistentPerson.getValue(ID);
+            revertCount++;
+            setId(id != null ? ((Number) id).intValue() : 0);
+        }
+
+        return super.getId();
+    }
+
+    @Override
+    public void setId(final int id) {
+        idReverted = true;
+        super.setId(id);
+    }
+
+    @Override
+    public String getName() {
+        if (!nameReverted) {
+            revertCount++;
+            setName((String) persistentPerson.getValue(NAME));
+        }
+
+        return super.getName();
+    }
+
+    @Override
+    public void setName(final String name) {
+        nameReverted = true;
+        super.setName(name);
+    }
+
+    @Override
+    public LocalDateTime getBirthday() {
+        if (!birthdayReverted) {
+            revertCount++;
+            setBirthday(persistentBeanConverter.revert(persistentPerson.getValue(BIRTHDAY), LocalDateTime.class, null));
+        }
+
+        return super.getBirthday();
+    }
+
+    @Override
+    public void setBirthday(final LocalDateTime birthday) {
+        birthdayReverted = true;
+        super.setBirthday(birthday);
+    }
+
+    /**
+     * @return true if the birthday has been reverted, or set, since this {@link LazyPerson} has been replayed.
+     */
+    boolean isBirthdayReverted() {
+        return birthdayReverted;
+    }
+
+    /**
+     * @return The number of properties, that have been reverted from the persistent form. Each property is reverted at
+     * most once.
+     */
+    int getRevertCount() {
+        return revertCount;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import de.ppi.deepsampler.examples.helloworld.Person;
+import de.ppi.deepsampler.persistence.bean.DefaultPersistentBean;
+import de.ppi.deepsampler.persistence.bean.PersistentBeanConverter;
+import de.ppi.deepsampler.persistence.bean.ext.StandardBeanConverterExtension;
+import de.ppi.deepsampler.persistence.model.PersistentBean;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This {@link de.ppi.deepsampler.persistence.bean.ext.BeanConverterExtension} replays {@link Person}s lazily.
+ * <p>
+ * By default, all properties of a replayed bean are reverted, even if the tested code reads only one of them. This
+ * extension returns a {@link LazyPerson} instead, that reverts each property the first time it is read. This makes
+ * replaying wide beans cheaper, if only a few of their properties are used.
+ * <p>
+ * Since a lazy bean is a subclass of the replayed type, this works only for non-final types. The subclass is written
+ * by hand, so that it can be debugged like any other class.
+ */
+public class LazyPersonBeanConverterExtension extends StandardBeanConverterExtension {
+
+    /**
+     * Here we bind the extension to {@link Person}.
+     */
+    @Override
+    public boolean isProcessable(Class<?> beanClass, ParameterizedType beanType) {
+        return Person.class.isAssignableFrom(beanClass);
+    }
+
+    /**
+     * A {@link Person} is saved as a {@link DefaultPersistentBean}, using the same keys as the default conversion, so
+     * that sample files are the same with or without this extension.
+     */
+    @Override
+    public Object convert(Object originalBean, ParameterizedType beanType, PersistentBeanConverter persistentBeanConverter) {
+        final Person person = (Person) originalBean;
+        final Map<String, Object> values = new HashMap<>();
+
+        values.put(LazyPerson.ID, person.getId());
+        values.put(LazyPerson.NAME, person.getName());
+        values.put(LazyPerson.BIRTHDAY, persistentBeanConverter.convert(person.getBirthday(), null));
+
+        return new DefaultPersistentBean(values);
+    }
+
+    /**
+     * Returns a {@link LazyPerson}, that keeps persistentBean and reverts its properties on first access.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T revert(Object persistentBean, Class<T> targetClass, ParameterizedType targetType, PersistentBeanConverter persistentBeanConverter) {
+        return (T) new LazyPerson((PersistentBean) persistentBean, persistentBeanConverter);
+    }
+}
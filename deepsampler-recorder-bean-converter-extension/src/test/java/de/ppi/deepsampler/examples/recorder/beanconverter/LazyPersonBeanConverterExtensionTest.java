@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.Person;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.junit.PrepareSampler;
+import de.ppi.deepsampler.junit.SampleRootPath;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import de.ppi.deepsampler.junit.UseBeanConverterExtension;
+import de.ppi.deepsampler.junit.UseSamplerFixture;
+import de.ppi.deepsampler.junit.json.LoadSamples;
+import de.ppi.deepsampler.junit.json.SaveSamples;
+import de.ppi.deepsampler.junit5.DeepSamplerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This test shows how the {@link LazyPersonBeanConverterExtension} replays {@link Person}s, that revert their
+ * properties only when they are read.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that the first test can save a sampler, that is read by the
+ * second test.
+ */
+@ExtendWith(DeepSamplerExtension.class)
+@UseSamplerFixture(LazyPersonBeanConverterExtensionTest.LazyPersonCompound.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class LazyPersonBeanConverterExtensionTest {
+
+    public static final Path EXPECTED_RECORDED_FILE = Paths.get("./tmp/samples/sampleWithLazyPerson.json");
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(1)
+    @SaveSamples("sampleWithLazyPerson.json")
+    void aPersonIsSaved() {
+        // 🧪 WHEN
+        greetingService.createGreeting(1);
+
+        // 🔬 THEN
+        // The sample file looks the same as without the extension.
+        assertThat(EXPECTED_RECORDED_FILE).content().contains("\"0$name\" : \"Geordi La Forge\"");
+    }
+
+    @Test
+    @Order(2)
+    @LoadSamples(value = "sampleWithLazyPerson.json")
+    void onlyTheReadPropertiesAreReverted() {
+        // 🧪 WHEN
+        final Person person = personDao.loadPerson(1);
+
+        // 🔬 THEN
+        // (1) The name is reverted, because it is read...
+        assertThat(person).isInstanceOf(LazyPerson.class);
+        assertThat(person.getName()).isEqualTo("Geordi La Forge");
+        // (2) ... but the birthday has not been touched, yet.
+        assertThat(((LazyPerson) person).isBirthdayReverted()).isFalse();
+
+        assertThat(person.getBirthday()).isEqualTo(LocalDateTime.of(2335, 2, 16, 0, 0));
+        assertThat(((LazyPerson) person).isBirthdayReverted()).isTrue();
+    }
+
+    @Test
+    @Order(3)
+    @LoadSamples(value = "sampleWithLazyPerson.json")
+    void eachPropertyIsRevertedOnlyOnce() {
+        // 👉 GIVEN
+        final LazyPerson person = (LazyPerson) personDao.loadPerson(1);
+        final int revertCountBeforeReadingTheId = person.getRevertCount();
+
+        // 🧪 WHEN
+        final int firstId = person.getId();
+        final int secondId = person.getId();
+
+        // 🔬 THEN
+        // (3) The id has been reverted by the first read. The second read returns the reverted id.
+        assertThat(secondId).isEqualTo(firstId);
+        assertThat(person.getRevertCount()).isEqualTo(revertCountBeforeReadingTheId + 1);
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        EXPECTED_RECORDED_FILE.toFile().delete();
+    }
+
+    /**
+     * The {@link LazyPersonBeanConverterExtension} is activated for all tests that use this {@link SamplerFixture}.
+     */
+    @UseBeanConverterExtension(LazyPersonBeanConverterExtension.class)
+    @SampleRootPath("./tmp/samples")
+    public static class LazyPersonCompound implements SamplerFixture {
+
+        @PrepareSampler
+        private PersonDaoImpl personDaoImplSampler;
+
+        @Override
+        public void defineSamplers() {
+            PersistentSample.of(personDaoImplSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        }
+    }
+}
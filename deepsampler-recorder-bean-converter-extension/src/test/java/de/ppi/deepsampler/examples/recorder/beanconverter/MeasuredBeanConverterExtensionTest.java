@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.examples.recorder.beanconverter;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.example.recorder.source.JmxSampleMetrics;
+import de.ppi.deepsampler.example.recorder.source.MeasuringBeanConverterExtension;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.junit.PrepareSampler;
+import de.ppi.deepsampler.junit.SampleRootPath;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import de.ppi.deepsampler.junit.UseBeanConverterExtension;
+import de.ppi.deepsampler.junit.UseSamplerFixture;
+import de.ppi.deepsampler.junit.json.LoadSamples;
+import de.ppi.deepsampler.junit.json.SaveSamples;
+import de.ppi.deepsampler.junit5.DeepSamplerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the time, that is needed by a {@link de.ppi.deepsampler.persistence.bean.ext.BeanConverterExtension},
+ * is measured by a {@link MeasuringBeanConverterExtension}. The measurements are published via JMX for each
+ * {@link de.ppi.deepsampler.persistence.bean.ext.BeanConverterExtension}, here for the {@link StarDateBeanConverterExtension}.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that the first test can save a sampler, that is read by the
+ * second test.
+ */
+@ExtendWith(DeepSamplerExtension.class)
+@UseSamplerFixture(MeasuredBeanConverterExtensionTest.MeasuredStarDateCompound.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MeasuredBeanConverterExtensionTest {
+
+    public static final Path EXPECTED_RECORDED_FILE = Paths.get("./tmp/samples/sampleWithMeasuredStarDate.json");
+
+    private static final ObjectName STAR_DATE_STATISTICS = JmxSampleMetrics.getObjectName(JmxSampleMetrics.BEAN_CONVERTER_EXTENSION,
+            StarDateBeanConverterExtension.class.getName());
+
+    @Inject
+    private GreetingService greetingService;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(1)
+    @SaveSamples("sampleWithMeasuredStarDate.json")
+    void aSampleIsSavedWithTheMeasuredExtension() {
+        // 🧪 WHEN
+        // The birthday is converted to a stardate, when the sample is saved after this test method has finished.
+        final String actualGreeting = greetingService.createGreeting(1);
+
+        // 🔬 THEN
+        assertEquals("Hello Geordi La Forge!", actualGreeting);
+    }
+
+    @Test
+    @Order(2)
+    @LoadSamples(value = "sampleWithMeasuredStarDate.json")
+    void conversionsAndReversionsArePublishedViaJmx() throws JMException {
+        // 🧪 WHEN
+        final String actualGreeting = greetingService.createGreeting(1);
+
+        // 🔬 THEN
+        // The birthday has been converted, when the sample has been saved by the preceding test, and reverted, when the
+        // sample has been loaded.
+        assertEquals("Hello Geordi La Forge!", actualGreeting);
+        assertThat((Long) ManagementFactory.getPlatformMBeanServer().getAttribute(STAR_DATE_STATISTICS, "Conversions")).isPositive();
+        assertThat((Long) ManagementFactory.getPlatformMBeanServer().getAttribute(STAR_DATE_STATISTICS, "Reversions")).isPositive();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        EXPECTED_RECORDED_FILE.toFile().delete();
+    }
+
+    /**
+     * BeanConverterExtensions are created by their default constructor, so the measured
+     * {@link StarDateBeanConverterExtension} is passed by a subclass of {@link MeasuringBeanConverterExtension}.
+     */
+    public static class MeasuredStarDateBeanConverterExtension extends MeasuringBeanConverterExtension {
+
+        public MeasuredStarDateBeanConverterExtension() {
+            super(new StarDateBeanConverterExtension());
+        }
+    }
+
+    /**
+     * The {@link MeasuredStarDateBeanConverterExtension} is activated for all tests that use this {@link SamplerFixture}.
+     */
+    @UseBeanConverterExtension(MeasuredStarDateBeanConverterExtension.class)
+    @SampleRootPath("./tmp/samples")
+    public static class MeasuredStarDateCompound implements SamplerFixture {
+
+        @PrepareSampler
+        private PersonDaoImpl personDaoImplSampler;
+
+        @Override
+        public void defineSamplers() {
+            PersistentSample.of(personDaoImplSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that writes recordings in the background, so that the
+ * next test can start while the recorded samples are written to the disk.
+ * <p>
+ * The recorded samples are converted to JSON on the calling thread, because DeepSampler's model of the recording is
+ * not meant to be shared with other threads. The {@link JsonSourceManager} can only write files, so the JSON is
+ * written once to a temporary file in the default temporary directory. Only this file is passed to the background
+ * thread, which copies it to the sample file.
+ * <p>
+ * All writes are done one after another by a single background thread. Before a sample file is loaded, all pending
+ * writes of this file are awaited, so a test always loads the complete recording. Errors, that occurred while a
+ * recording was written, are thrown by the next load of the same file, or by {@link #awaitPendingWrites()}, which
+ * should be called at the end of a test suite, e.g. in an <code>@AfterAll</code> method. Pending writes are also
+ * awaited, when the JVM shuts down, so no recording gets lost. Errors, that are only noticed while the JVM shuts down,
+ * are logged.
+ */
+public class AsyncSavingSourceManager extends JsonStreamSourceManager {
+
+    private static final Map<Path, List<CompletableFuture<Void>>> PENDING_WRITES = new ConcurrentHashMap<>();
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "deepsampler-async-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncSavingSourceManager.class.getName());
+
+    private static final String PENDING_FILE_PREFIX = "deepsampler-pending-";
+    private static final String PENDING_FILE_SUFFIX = ".json";
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncSavingSourceManager::awaitPendingWritesOnShutdown));
+    }
+
+    private final Path sampleFile;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     */
+    public AsyncSavingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Converts the recording to JSON and passes the JSON to the background thread, that writes it to the sample file.
+     */
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        final Path pendingJson = createPendingFile();
+
+        try {
+            // The temporary file of the JsonSourceManager is in the same directory, so it is only renamed.
+            saveJsonFile(sampleMethodToSampleMap, persistentSamplerContext, jsonFile -> moveSampleFile(jsonFile, pendingJson));
+        } catch (RuntimeException e) {
+            deletePendingFile(pendingJson);
+            throw e;
+        }
+
+        final CompletableFuture<Void> write = CompletableFuture.runAsync(() -> write(pendingJson), WRITER);
+
+        PENDING_WRITES.compute(sampleFile, (file, writes) -> {
+            final List<CompletableFuture<Void>> pendingWrites = writes != null ? writes : new ArrayList<>();
+            pendingWrites.add(write);
+            return pendingWrites;
+        });
+    }
+
+    /**
+     * Awaits all pending writes of the sample file and loads it afterwards.
+     */
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        awaitPendingWrites(sampleFile);
+
+        return loadJson(out -> Files.copy(sampleFile, out), persistentSamplerContext);
+    }
+
+    /**
+     * Awaits all pending writes of all sample files. All writes are awaited, even if some of them have failed.
+     *
+     * @throws PersistenceException if a recording could not be written. The errors of further recordings, that could
+     *                              not be written, are added as suppressed exceptions.
+     */
+    public static void awaitPendingWrites() {
+        final List<RuntimeException> errors = new ArrayList<>();
+
+        for (final Path pendingFile : PENDING_WRITES.keySet()) {
+            errors.addAll(join(PENDING_WRITES.remove(pendingFile)));
+        }
+
+        throwErrors(errors);
+    }
+
+    private static void awaitPendingWritesOnShutdown() {
+        try {
+            awaitPendingWrites();
+        } catch (RuntimeException e) {
+            // Exceptions, that are thrown by a shutdown hook, are not reported to anyone.
+            LOGGER.log(Level.SEVERE, "Recorded samples could not be saved.", e);
+        }
+    }
+
+    /**
+     * Awaits all pending writes of sampleFile. All writes are awaited, even if some of them have failed.
+     *
+     * @param sampleFile The sample file
+     * @throws PersistenceException if a recording could not be written. The errors of further recordings, that could
+     *                              not be written, are added as suppressed exceptions.
+     */
+    public static void awaitPendingWrites(final Path sampleFile) {
+        throwErrors(join(PENDING_WRITES.remove(sampleFile.toAbsolutePath().normalize())));
+    }
+
+    private void write(final Path pendingJson) {
+        try {
+            writeSampleFile(sampleFile, out -> Files.copy(pendingJson, out));
+        } catch (IOException e) {
+            throw new PersistenceException("The samples could not be saved to " + sampleFile + ".", e);
+        } finally {
+            deletePendingFile(pendingJson);
+        }
+    }
+
+    private static Path createPendingFile() {
+        try {
+            return Files.createTempFile(PENDING_FILE_PREFIX, PENDING_FILE_SUFFIX);
+        } catch (IOException e) {
+            throw new PersistenceException("A temporary sample file could not be created.", e);
+        }
+    }
+
+    private static void deletePendingFile(final Path pendingJson) {
+        try {
+            Files.deleteIfExists(pendingJson);
+        } catch (IOException e) {
+            // A leftover temporary file must not hide the result of the write, so it is left to the operating system.
+        }
+    }
+
+    private static List<RuntimeException> join(final List<CompletableFuture<Void>> writes) {
+        final List<RuntimeException> errors = new ArrayList<>();
+
+        if (writes == null) {
+            return errors;
+        }
+
+        for (final CompletableFuture<Void> write : writes) {
+            try {
+                write.join();
+            } catch (CompletionException e) {
+                errors.add(e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new PersistenceException("A recording could not be saved.", e.getCause()));
+            }
+        }
+
+        return errors;
+    }
+
+    private static void throwErrors(final List<RuntimeException> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+
+        final RuntimeException firstError = errors.get(0);
+
+        for (final RuntimeException error : errors.subList(1, errors.size())) {
+            firstError.addSuppressed(error);
+        }
+
+        throw firstError;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that reads and writes compressed sample files.
+ * <p>
+ * Samples are written using the {@link SampleCodec} that is passed to the constructor, gzip by default. While loading,
+ * the codec is detected by the magic number of the file, so uncompressed sample files can still be loaded. Sample files
+ * can be loaded from the file system or from the classpath.
+ * <p>
+ * All data is streamed, so the memory consumption doesn't depend on the size of the sample file.
+ */
+public class CompressingSourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+    private final String classPathResource;
+    private final SampleCodec codec;
+
+    /**
+     * Creates a {@link CompressingSourceManager} that compresses samples using gzip.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file in the file system
+     */
+    public CompressingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        this(jsonSourceManagerBuilder, sampleFile, new GzipSampleCodec());
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file in the file system
+     * @param codec                    The codec, that is used to compress samples
+     */
+    public CompressingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile, final SampleCodec codec) {
+        this(jsonSourceManagerBuilder, sampleFile, null, codec);
+    }
+
+    private CompressingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile,
+                                     final String classPathResource, final SampleCodec codec) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+        this.classPathResource = classPathResource;
+        this.codec = codec;
+    }
+
+    /**
+     * Creates a {@link CompressingSourceManager} that loads a sample file from the classpath. Since classpath
+     * resources cannot be written, this {@link de.ppi.deepsampler.persistence.api.SourceManager} can only be used to
+     * load samples.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param classPathResource        The name of the resource as it is described by {@link ClassLoader#getResource(String)}
+     * @return The new {@link CompressingSourceManager}
+     */
+    public static CompressingSourceManager forClassPathResource(final JsonSourceManager.Builder jsonSourceManagerBuilder,
+                                                                final String classPathResource) {
+        return new CompressingSourceManager(jsonSourceManagerBuilder, null, classPathResource, new GzipSampleCodec());
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        if (sampleFile == null) {
+            throw new PersistenceException("Samples cannot be saved to the classpath resource " + classPathResource);
+        }
+
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, in -> {
+            writeSampleFile(sampleFile, out -> {
+                try (OutputStream encodedOut = codec.encode(out)) {
+                    copy(in, encodedOut);
+                }
+            });
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        return loadJson(out -> {
+            try (InputStream in = SampleCodecs.decode(openSampleFile())) {
+                copy(in, out);
+            }
+        }, persistentSamplerContext);
+    }
+
+    private InputStream openSampleFile() throws IOException {
+        if (sampleFile != null) {
+            return Files.newInputStream(sampleFile);
+        }
+
+        final InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(classPathResource);
+
+        if (in == null) {
+            throw new PersistenceException("The classpath resource " + classPathResource + " does not exist.");
+        }
+
+        return in;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+/**
+ * The accumulated measurements of one BeanConverterExtension, that are published by {@link JmxSampleMetrics}.
+ */
+public class ConversionStatistics implements ConversionStatisticsMXBean {
+
+    private final LatencyHistogram conversionLatencies = new LatencyHistogram();
+    private final LatencyHistogram reversionLatencies = new LatencyHistogram();
+
+    void recordConversion(final long latencyNanos) {
+        conversionLatencies.record(latencyNanos);
+    }
+
+    void recordReversion(final long latencyNanos) {
+        reversionLatencies.record(latencyNanos);
+    }
+
+    @Override
+    public long getConversions() {
+        return conversionLatencies.getCount();
+    }
+
+    @Override
+    public double getMeanConversionLatencyMillis() {
+        return conversionLatencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxConversionLatencyMillis() {
+        return conversionLatencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getConversionLatencyHistogram() {
+        return conversionLatencies.getBuckets();
+    }
+
+    @Override
+    public long getReversions() {
+        return reversionLatencies.getCount();
+    }
+
+    @Override
+    public double getMeanReversionLatencyMillis() {
+        return reversionLatencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxReversionLatencyMillis() {
+        return reversionLatencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getReversionLatencyHistogram() {
+        return reversionLatencies.getBuckets();
+    }
+}
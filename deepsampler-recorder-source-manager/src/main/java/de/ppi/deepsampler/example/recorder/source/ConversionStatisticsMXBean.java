@@ -0,0 +1,34 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+/**
+ * The JMX-view of the {@link ConversionStatistics} of one BeanConverterExtension.
+ */
+public interface ConversionStatisticsMXBean {
+
+    long getConversions();
+
+    double getMeanConversionLatencyMillis();
+
+    double getMaxConversionLatencyMillis();
+
+    /**
+     * @return The conversion latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getConversionLatencyHistogram();
+
+    long getReversions();
+
+    double getMeanReversionLatencyMillis();
+
+    double getMaxReversionLatencyMillis();
+
+    /**
+     * @return The reversion latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getReversionLatencyHistogram();
+}
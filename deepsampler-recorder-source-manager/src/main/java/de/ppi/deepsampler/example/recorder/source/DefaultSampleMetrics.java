@@ -0,0 +1,26 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the default {@link SampleMetrics} once, when it is used for the first time.
+ */
+final class DefaultSampleMetrics {
+
+    static final SampleMetrics INSTANCE = lookup();
+
+    private DefaultSampleMetrics() {
+        // This class holds only the default instance.
+    }
+
+    private static SampleMetrics lookup() {
+        final Iterator<SampleMetrics> services = ServiceLoader.load(SampleMetrics.class).iterator();
+        return services.hasNext() ? services.next() : new JmxSampleMetrics();
+    }
+}
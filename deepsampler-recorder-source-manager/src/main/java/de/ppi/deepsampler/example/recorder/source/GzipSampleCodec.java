@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The default {@link SampleCodec}. Sample files are highly repetitive, so gzip compresses them very well.
+ */
+public class GzipSampleCodec implements SampleCodec {
+
+    private static final byte[] MAGIC_NUMBER = {(byte) 0x1f, (byte) 0x8b};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public byte[] getMagicNumber() {
+        return MAGIC_NUMBER.clone();
+    }
+
+    @Override
+    public InputStream decode(final InputStream compressed) throws IOException {
+        return new GZIPInputStream(compressed, BUFFER_SIZE);
+    }
+
+    @Override
+    public OutputStream encode(final OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+}
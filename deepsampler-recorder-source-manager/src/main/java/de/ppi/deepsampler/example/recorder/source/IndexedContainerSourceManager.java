@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that stores samples in an {@link IndexedSampleContainer}.
+ * <p>
+ * Recordings are appended to the container, so samples from earlier recordings are kept. Loading reads only the
+ * entries of the samplers, that are declared by the currently active samplers, directly from their offsets in the
+ * container.
+ */
+public class IndexedContainerSourceManager extends JsonStreamSourceManager {
+
+    private final IndexedSampleContainer container;
+    private final String section;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param containerFile            The container file. It is created by the first recording. All SourceManagers of
+     *                                 the same file share one {@link IndexedSampleContainer#forFile(Path)}.
+     */
+    public IndexedContainerSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path containerFile) {
+        this(jsonSourceManagerBuilder, IndexedSampleContainer.forFile(containerFile));
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param container                The container, e.g. a {@link MappedSampleContainer} that is shared by many loads.
+     */
+    public IndexedContainerSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final IndexedSampleContainer container) {
+        this(jsonSourceManagerBuilder, container, null);
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param container                The container
+     * @param section                  The section of the container, that is written and read by this
+     *                                 {@link de.ppi.deepsampler.persistence.api.SourceManager}, e.g. the name of a
+     *                                 test method. If null is passed, the default section is used.
+     */
+    public IndexedContainerSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final IndexedSampleContainer container,
+                                         final String section) {
+        super(jsonSourceManagerBuilder);
+        this.container = container;
+        this.section = section;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, in -> container.append(in, section));
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final Set<String> declaredSamplerIds = SamplerIdFilteringSourceManager.getDeclaredSamplerIds();
+
+        return loadJson(out -> container.writeSampleJson(out, section, declaredSamplerIds::contains), persistentSamplerContext);
+    }
+}
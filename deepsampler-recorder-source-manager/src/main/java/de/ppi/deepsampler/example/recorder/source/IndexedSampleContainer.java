@@ -0,0 +1,575 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * A container file for large recordings, that allows random access to single method calls.
+ * <p>
+ * Each recorded method call is stored as a separate JSON-entry. An index maps each sampler id and the hash of the
+ * recorded parameters to the byte offset of the entry. Reading a container therefore only touches the entries, that
+ * are actually needed. The container has the following layout:
+ * <pre>
+ * [magic number][version][offset of the current index]
+ * [entry] [entry] ... [index]
+ * [entry] [entry] ... [index]
+ * ...
+ * </pre>
+ * The container is only ever appended to. Appending a recording writes the new entries and a new index behind the end
+ * of the file. Only after they have been forced to the disk, the offset in the header is switched to the new index.
+ * This single write of eight bytes is the last step, so if an append is interrupted, e.g. by a crash, the header still
+ * points to the previous index, which is complete and has not been touched.
+ * <p>
+ * If a method call with the same sampler id and the same parameters has been recorded before, the new index points to
+ * the new entry. The superseded entry, the previous indexes and the remains of interrupted appends are not reclaimed
+ * by appending. They stay in the file until the container is rewritten by {@link #compact()}.
+ * <p>
+ * A container can be divided into sections, e.g. one section for each test method of a test class. Each section has
+ * its own samples, so the same sampler id can be recorded in many sections. Samples, that are appended without a
+ * section, belong to the default section.
+ * <p>
+ * The index is read once and kept in memory until the header points to another index, or until the container file
+ * is replaced. Loads of an unchanged
+ * container therefore only read the header and the entries, that are needed. {@link #append(InputStream, String)} and
+ * {@link #compact()} are only synchronized within one instance, so all SourceManagers, that use the same container
+ * file, should share the instance, that is returned by {@link #forFile(Path)}.
+ */
+public class IndexedSampleContainer {
+
+    private static final int MAGIC_NUMBER = 0x44534943;
+    private static final int VERSION = 2;
+    private static final int INDEX_OFFSET_POSITION = Integer.BYTES * 2;
+    static final int HEADER_LENGTH = INDEX_OFFSET_POSITION + Long.BYTES;
+
+    /**
+     * The offset of the index in a container, whose first append has been interrupted.
+     */
+    private static final long NO_INDEX = 0;
+
+    /**
+     * Separates the section from the sampler id in the keys of the index. It cannot be part of a sampler id.
+     */
+    private static final char SECTION_SEPARATOR = '\u0000';
+
+    private static final ConcurrentMap<Path, IndexedSampleContainer> CONTAINERS = new ConcurrentHashMap<>();
+
+    private final Path containerFile;
+
+    /**
+     * The index, that has been read last, together with its offset and the modification time of the container file.
+     * It is replaced, if the header points to another index, or if the container file has been replaced.
+     */
+    private volatile CachedIndex cachedIndex;
+
+    /**
+     * Loads share the read lock, so they never see a container, that is replaced by {@link #compact()} while they
+     * read it. Appends don't need the lock, because they don't change any byte, that is visible to a load.
+     */
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    public IndexedSampleContainer(final Path containerFile) {
+        this.containerFile = containerFile;
+    }
+
+    /**
+     * @param containerFile The container file
+     * @return The {@link IndexedSampleContainer} of the containerFile, that is shared by all callers within this JVM.
+     */
+    public static IndexedSampleContainer forFile(final Path containerFile) {
+        return CONTAINERS.computeIfAbsent(containerFile.toAbsolutePath().normalize(), IndexedSampleContainer::new);
+    }
+
+    public Path getContainerFile() {
+        return containerFile;
+    }
+
+    /**
+     * @return The ids of all samplers, that have been recorded in the default section of this container.
+     */
+    public Set<String> getSamplerIds() {
+        return getSamplerIds(null);
+    }
+
+    /**
+     * @param section The name of a section, or null for the default section
+     * @return The ids of all samplers, that have been recorded in the section.
+     */
+    public Set<String> getSamplerIds(final String section) {
+        final Set<String> samplerIds = new LinkedHashSet<>();
+
+        for (final String key : readIndex().entries.keySet()) {
+            if (isInSection(key, section)) {
+                samplerIds.add(toSamplerId(key));
+            }
+        }
+
+        return samplerIds;
+    }
+
+    /**
+     * @return The names of all sections of this container. The default section is not included.
+     */
+    public Set<String> getSections() {
+        final Set<String> sections = new LinkedHashSet<>();
+
+        for (final String key : readIndex().entries.keySet()) {
+            final int separator = key.indexOf(SECTION_SEPARATOR);
+
+            if (separator >= 0) {
+                sections.add(key.substring(0, separator));
+            }
+        }
+
+        return sections;
+    }
+
+    /**
+     * Appends all method calls from a sample file to the default section of this container. The container is created
+     * if it doesn't exist yet.
+     *
+     * @param sampleJson A sample file in JSON-format
+     */
+    public void append(final InputStream sampleJson) {
+        append(sampleJson, null);
+    }
+
+    /**
+     * Appends all method calls from a sample file to a section of this container. The container is created if it
+     * doesn't exist yet.
+     *
+     * @param sampleJson A sample file in JSON-format
+     * @param section    The name of the section, or null for the default section
+     */
+    public synchronized void append(final InputStream sampleJson, final String section) {
+        // The cached index is shared with running loads, so the new entries are added to a copy.
+        final Index index = readIndex().copy();
+
+        try {
+            createParentDirectories();
+        } catch (IOException e) {
+            throw new PersistenceException("The directory of the sample container " + containerFile + " could not be created.", e);
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(containerFile.toFile(), "rw")) {
+            if (file.length() == 0) {
+                writeHeader(file);
+            }
+
+            file.seek(file.length());
+
+            final CountingOutputStream out = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(file.getChannel())), file.length());
+
+            final String recordedId = SampleJson.readCalls(sampleJson, (samplerId, call) -> {
+                final byte[] entry = SampleJson.toBytes(call);
+                final String parameterHash = SampleJson.hash(SampleJson.toBytes(call.path(SampleJson.PARAMETER)));
+
+                index.put(toKey(section, samplerId), parameterHash, new Entry(out.getPosition(), entry.length));
+                out.write(entry);
+            });
+
+            if (index.id == null) {
+                index.id = recordedId != null ? recordedId : UUID.randomUUID().toString();
+            }
+
+            final long indexOffset = out.getPosition();
+            writeIndex(index, out);
+            out.flush();
+
+            switchIndex(file, indexOffset);
+        } catch (IOException e) {
+            throw new PersistenceException("The sample container " + containerFile + " could not be written.", e);
+        }
+    }
+
+    /**
+     * Rewrites the container without superseded entries, previous indexes and the remains of interrupted appends. The
+     * compacted container is written to a temporary file, which replaces the container file by an atomic move. Loads
+     * of this instance wait until the compaction is finished. Other instances and other processes must not read the
+     * container while it is compacted.
+     */
+    public synchronized void compact() {
+        compactionLock.writeLock().lock();
+
+        try {
+            compact(readIndex());
+            cachedIndex = null;
+            containerReplaced();
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void compact(final Index index) {
+        if (index.id == null) {
+            return;
+        }
+
+        try {
+            final Path tempFile = Files.createTempFile(containerFile.toAbsolutePath().getParent(), containerFile.getFileName().toString(), ".tmp");
+
+            try {
+                try (EntryReader entryReader = openEntryReader();
+                     RandomAccessFile file = new RandomAccessFile(tempFile.toFile(), "rw")) {
+                    writeHeader(file);
+
+                    final CountingOutputStream out = new CountingOutputStream(
+                            new BufferedOutputStream(Channels.newOutputStream(file.getChannel())), HEADER_LENGTH);
+                    final Index compactedIndex = new Index();
+                    compactedIndex.id = index.id;
+
+                    for (final Map.Entry<String, Map<String, Entry>> sample : index.entries.entrySet()) {
+                        for (final Map.Entry<String, Entry> call : sample.getValue().entrySet()) {
+                            final byte[] entry = entryReader.read(call.getValue().offset, call.getValue().length);
+
+                            compactedIndex.put(sample.getKey(), call.getKey(), new Entry(out.getPosition(), entry.length));
+                            out.write(entry);
+                        }
+                    }
+
+                    final long indexOffset = out.getPosition();
+                    writeIndex(compactedIndex, out);
+                    out.flush();
+
+                    switchIndex(file, indexOffset);
+                }
+
+                Files.move(tempFile, containerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The sample container " + containerFile + " could not be compacted.", e);
+        }
+    }
+
+    /**
+     * Writes a sample file, that contains the method calls of all samplers in the default section, that are accepted
+     * by isIncluded. Only the entries of these samplers are read from the container.
+     *
+     * @param out        The sample file in JSON-format
+     * @param isIncluded Decides which samplers are read
+     */
+    public void writeSampleJson(final OutputStream out, final Predicate<String> isIncluded) {
+        writeSampleJson(out, null, isIncluded);
+    }
+
+    /**
+     * Writes a sample file, that contains the method calls of all samplers in a section, that are accepted by
+     * isIncluded. Only the entries of these samplers are read from the container.
+     *
+     * @param out        The sample file in JSON-format
+     * @param section    The name of the section, or null for the default section
+     * @param isIncluded Decides which samplers are read
+     */
+    public void writeSampleJson(final OutputStream out, final String section, final Predicate<String> isIncluded) {
+        compactionLock.readLock().lock();
+
+        try {
+            writeSampleJson(out, readIndex(), section, isIncluded);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    private void writeSampleJson(final OutputStream out, final Index index, final String section, final Predicate<String> isIncluded) {
+        final Map<String, List<byte[]>> calls = new LinkedHashMap<>();
+
+        try (EntryReader entryReader = openEntryReader()) {
+            for (final Map.Entry<String, Map<String, Entry>> sample : index.entries.entrySet()) {
+                if (!isInSection(sample.getKey(), section) || !isIncluded.test(toSamplerId(sample.getKey()))) {
+                    continue;
+                }
+
+                final List<byte[]> sampleCalls = new ArrayList<>();
+
+                for (final Entry entry : sample.getValue().values()) {
+                    sampleCalls.add(entryReader.read(entry.offset, entry.length));
+                }
+
+                calls.put(toSamplerId(sample.getKey()), sampleCalls);
+            }
+
+            SampleJson.writeRawCalls(out, index.id, calls);
+        } catch (IOException e) {
+            throw new PersistenceException("The sample container " + containerFile + " could not be read.", e);
+        }
+    }
+
+    /**
+     * Opens the container file for reading single entries. Subclasses can override this method to change how entries
+     * are read, e.g. from a memory-mapped file.
+     *
+     * @return An {@link EntryReader} that is closed after all entries, that are needed by one load, have been read.
+     * @throws IOException if the container file cannot be opened
+     */
+    protected EntryReader openEntryReader() throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(containerFile.toFile(), "r");
+
+        return new EntryReader() {
+            @Override
+            public byte[] read(final long offset, final int length) throws IOException {
+                final byte[] entry = new byte[length];
+                file.seek(offset);
+                file.readFully(entry);
+                return entry;
+            }
+
+            @Override
+            public void close() throws IOException {
+                file.close();
+            }
+        };
+    }
+
+    /**
+     * Is called after the container file has been replaced by {@link #compact()}, so that subclasses can drop
+     * everything they keep from the previous file. No load is running, while this method is called.
+     */
+    protected void containerReplaced() {
+        // The default EntryReader opens the container file for each load, so there is nothing to drop.
+    }
+
+    private Index readIndex() {
+        if (!Files.exists(containerFile) || containerFile.toFile().length() == 0) {
+            return new Index();
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(containerFile.toFile(), "r")) {
+            checkMagicNumber(file.readInt());
+            checkVersion(file.readInt());
+            final long indexOffset = file.readLong();
+
+            if (indexOffset == NO_INDEX) {
+                return new Index();
+            }
+
+            final FileTime lastModifiedTime = Files.getLastModifiedTime(containerFile);
+            final CachedIndex cached = cachedIndex;
+
+            if (cached != null && cached.offset == indexOffset && cached.lastModifiedTime.equals(lastModifiedTime)) {
+                return cached.index;
+            }
+
+            final Index index = readIndex(file, indexOffset);
+            cachedIndex = new CachedIndex(indexOffset, lastModifiedTime, index);
+
+            return index;
+        } catch (IOException e) {
+            throw new PersistenceException("The index of the sample container " + containerFile + " could not be read.", e);
+        }
+    }
+
+    private static Index readIndex(final RandomAccessFile file, final long indexOffset) throws IOException {
+        final Index index = new Index();
+
+        file.seek(indexOffset);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+
+        index.id = in.readUTF();
+        final int entryCount = in.readInt();
+
+        for (int i = 0; i < entryCount; i++) {
+            final String key = in.readUTF();
+            final String parameterHash = in.readUTF();
+            index.put(key, parameterHash, new Entry(in.readLong(), in.readInt()));
+        }
+
+        return index;
+    }
+
+    private static void writeHeader(final RandomAccessFile file) throws IOException {
+        file.writeInt(MAGIC_NUMBER);
+        file.writeInt(VERSION);
+        file.writeLong(NO_INDEX);
+    }
+
+    private static void writeIndex(final Index index, final OutputStream out) throws IOException {
+        final DataOutputStream indexOut = new DataOutputStream(out);
+
+        indexOut.writeUTF(index.id);
+        indexOut.writeInt(index.size());
+
+        for (final Map.Entry<String, Map<String, Entry>> sample : index.entries.entrySet()) {
+            for (final Map.Entry<String, Entry> call : sample.getValue().entrySet()) {
+                indexOut.writeUTF(sample.getKey());
+                indexOut.writeUTF(call.getKey());
+                indexOut.writeLong(call.getValue().offset);
+                indexOut.writeInt(call.getValue().length);
+            }
+        }
+
+        indexOut.flush();
+    }
+
+    /**
+     * Points the header to a new index. The entries and the index are forced to the disk before, and the header is
+     * written last, so the header never points to an index, that has not been written completely.
+     */
+    private static void switchIndex(final RandomAccessFile file, final long indexOffset) throws IOException {
+        file.getChannel().force(false);
+        file.seek(INDEX_OFFSET_POSITION);
+        file.writeLong(indexOffset);
+        file.getChannel().force(false);
+    }
+
+    private static String toKey(final String section, final String samplerId) {
+        return section == null ? samplerId : section + SECTION_SEPARATOR + samplerId;
+    }
+
+    private static boolean isInSection(final String key, final String section) {
+        final int separator = key.indexOf(SECTION_SEPARATOR);
+
+        if (section == null) {
+            return separator < 0;
+        }
+
+        return separator == section.length() && key.startsWith(section);
+    }
+
+    private static String toSamplerId(final String key) {
+        return key.substring(key.indexOf(SECTION_SEPARATOR) + 1);
+    }
+
+    private void createParentDirectories() throws IOException {
+        final Path parent = containerFile.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private void checkMagicNumber(final int magicNumber) {
+        if (magicNumber != MAGIC_NUMBER) {
+            throw new PersistenceException("The file " + containerFile + " is not a sample container.");
+        }
+    }
+
+    private void checkVersion(final int version) {
+        if (version != VERSION) {
+            throw new PersistenceException("The sample container " + containerFile + " has the unsupported version " + version + ".");
+        }
+    }
+
+    /**
+     * Reads single entries of a container file.
+     */
+    protected interface EntryReader extends Closeable {
+
+        /**
+         * @param offset The offset of the entry in the container file
+         * @param length The length of the entry in bytes
+         * @return The entry, which is a single method call in JSON-format
+         * @throws IOException if the entry cannot be read
+         */
+        byte[] read(long offset, int length) throws IOException;
+    }
+
+    private static class Index {
+        private String id;
+        private final Map<String, Map<String, Entry>> entries = new LinkedHashMap<>();
+
+        private void put(final String key, final String parameterHash, final Entry entry) {
+            entries.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(parameterHash, entry);
+        }
+
+        private int size() {
+            return entries.values().stream().mapToInt(Map::size).sum();
+        }
+
+        private Index copy() {
+            final Index copy = new Index();
+            copy.id = id;
+            entries.forEach((key, calls) -> copy.entries.put(key, new LinkedHashMap<>(calls)));
+            return copy;
+        }
+    }
+
+    private static class CachedIndex {
+        private final long offset;
+        private final FileTime lastModifiedTime;
+        private final Index index;
+
+        private CachedIndex(final long offset, final FileTime lastModifiedTime, final Index index) {
+            this.offset = offset;
+            this.lastModifiedTime = lastModifiedTime;
+            this.index = index;
+        }
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int length;
+
+        private Entry(final long offset, final int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Keeps track of the position in the container file, so that the offsets of the entries are known without
+     * asking the file.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long position;
+
+        private CountingOutputStream(final OutputStream out, final long position) {
+            this.out = out;
+            this.position = position;
+        }
+
+        private long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
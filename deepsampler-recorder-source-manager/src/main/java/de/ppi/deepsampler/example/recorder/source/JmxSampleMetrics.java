@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The default {@link SampleMetrics}. The measurements are accumulated per sample source, per matcher and per
+ * BeanConverterExtension, and registered at the platform {@link MBeanServer}, so they can be observed by JConsole,
+ * VisualVM or any other JMX-client:
+ * <ul>
+ *     <li>{@link SampleSourceStatistics} as <code>de.ppi.deepsampler:type=SampleSource,name="{source}"</code></li>
+ *     <li>{@link MatcherStatistics} as <code>de.ppi.deepsampler:type=Matcher,name="{matcher}"</code></li>
+ *     <li>{@link ConversionStatistics} as <code>de.ppi.deepsampler:type=BeanConverterExtension,name="{class name}"</code></li>
+ * </ul>
+ * If another {@link JmxSampleMetrics} has already registered the same name at the same {@link MBeanServer}, the
+ * number of this instance is appended, e.g. <code>de.ppi.deepsampler:type=SampleSource,name="{source}",instance=2</code>.
+ * The name, that has actually been registered, is returned by {@link #getRegisteredObjectName(String, String)}.
+ * <p>
+ * Metrics must never fail the operation, that they measure. If statistics cannot be registered at the
+ * {@link MBeanServer}, they are still accumulated, but not published, and the failure is logged.
+ */
+public class JmxSampleMetrics implements SampleMetrics {
+
+    public static final String DOMAIN = "de.ppi.deepsampler";
+
+    public static final String SAMPLE_SOURCE = "SampleSource";
+    public static final String MATCHER = "Matcher";
+    public static final String BEAN_CONVERTER_EXTENSION = "BeanConverterExtension";
+
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+    private static final Logger LOGGER = Logger.getLogger(JmxSampleMetrics.class.getName());
+
+    private final MBeanServer mBeanServer;
+    private final int instanceNumber = INSTANCE_COUNT.incrementAndGet();
+
+    private final Map<String, SampleSourceStatistics> statistics = new ConcurrentHashMap<>();
+    private final Map<String, MatcherStatistics> matcherStatistics = new ConcurrentHashMap<>();
+    private final Map<String, ConversionStatistics> conversionStatistics = new ConcurrentHashMap<>();
+    private final Map<ObjectName, ObjectName> registeredObjectNames = new ConcurrentHashMap<>();
+
+    public JmxSampleMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * @param mBeanServer The {@link MBeanServer}, that publishes the statistics
+     */
+    public JmxSampleMetrics(final MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    @Override
+    public void recordLoad(final String source, final long bytes, final long entries, final long latencyNanos) {
+        getStatistics(source).recordLoad(bytes, entries, latencyNanos);
+    }
+
+    @Override
+    public void recordSave(final String source, final long bytes, final long entries, final long latencyNanos) {
+        getStatistics(source).recordSave(bytes, entries, latencyNanos);
+    }
+
+    @Override
+    public void recordMatch(final String matcher, final boolean matched, final long latencyNanos) {
+        getMatcherStatistics(matcher).record(matched, latencyNanos);
+    }
+
+    @Override
+    public void recordConversion(final String extension, final long latencyNanos) {
+        getConversionStatistics(extension).recordConversion(latencyNanos);
+    }
+
+    @Override
+    public void recordReversion(final String extension, final long latencyNanos) {
+        getConversionStatistics(extension).recordReversion(latencyNanos);
+    }
+
+    /**
+     * @param source The name of a sample source
+     * @return The {@link SampleSourceStatistics} of source. It is registered at the {@link MBeanServer}, when it is
+     * requested for the first time.
+     */
+    public SampleSourceStatistics getStatistics(final String source) {
+        return statistics.computeIfAbsent(source, name -> register(new SampleSourceStatistics(), SAMPLE_SOURCE, name));
+    }
+
+    /**
+     * @param matcher The name of a matcher
+     * @return The {@link MatcherStatistics} of matcher. It is registered at the {@link MBeanServer}, when it is
+     * requested for the first time.
+     */
+    public MatcherStatistics getMatcherStatistics(final String matcher) {
+        return matcherStatistics.computeIfAbsent(matcher, name -> register(new MatcherStatistics(), MATCHER, name));
+    }
+
+    /**
+     * @param extension The class name of a BeanConverterExtension
+     * @return The {@link ConversionStatistics} of extension. It is registered at the {@link MBeanServer}, when it is
+     * requested for the first time.
+     */
+    public ConversionStatistics getConversionStatistics(final String extension) {
+        return conversionStatistics.computeIfAbsent(extension, name -> register(new ConversionStatistics(), BEAN_CONVERTER_EXTENSION, name));
+    }
+
+    /**
+     * @param source The name of a sample source
+     * @return The name, under which the {@link SampleSourceStatistics} of source are registered by the first
+     * {@link JmxSampleMetrics}, usually by {@link SampleMetrics#getDefault()}
+     */
+    public static ObjectName getObjectName(final String source) {
+        return getObjectName(SAMPLE_SOURCE, source);
+    }
+
+    /**
+     * @param type The type of the statistics, e.g. {@link #MATCHER}
+     * @param name The name of the sample source, the matcher or the BeanConverterExtension
+     * @return The name, under which the statistics are registered by the first {@link JmxSampleMetrics}
+     */
+    public static ObjectName getObjectName(final String type, final String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new PersistenceException("The statistics of " + name + " cannot be published via JMX.", e);
+        }
+    }
+
+    /**
+     * @param type The type of the statistics, e.g. {@link #MATCHER}
+     * @param name The name of the sample source, the matcher or the BeanConverterExtension
+     * @return The name, under which this instance has registered the statistics, or null if nothing has been
+     * measured yet.
+     */
+    public ObjectName getRegisteredObjectName(final String type, final String name) {
+        return registeredObjectNames.get(getObjectName(type, name));
+    }
+
+    private <T> T register(final T mBean, final String type, final String name) {
+        try {
+            final ObjectName objectName = getObjectName(type, name);
+
+            try {
+                mBeanServer.registerMBean(mBean, objectName);
+                registeredObjectNames.put(objectName, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                // Another JmxSampleMetrics has published the same name already.
+                final ObjectName instanceObjectName = new ObjectName(objectName + ",instance=" + instanceNumber);
+                mBeanServer.registerMBean(mBean, instanceObjectName);
+                registeredObjectNames.put(objectName, instanceObjectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "The statistics of " + name + " cannot be published via JMX.", e);
+        }
+
+        return mBean;
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SourceManager} is the interface between DeepSampler and the storage of samples. DeepSampler comes with the
+ * {@link JsonSourceManager}, that reads and writes samples from and to a single JSON-file. This abstract class shows how
+ * custom {@link SourceManager}s can be built on top of the {@link JsonSourceManager}.
+ * <p>
+ * Subclasses work on the raw JSON-stream of a sample file, e.g. to filter, split or transform it. The actual
+ * conversion between the JSON-stream and DeepSampler's persistent model is still done by a {@link JsonSourceManager},
+ * so that all serializers, deserializers and modules, that have been registered on the
+ * {@link JsonSourceManager.Builder}, are still applied.
+ * <p>
+ * Since the {@link JsonSourceManager} reads from and writes to files, the JSON-stream is passed through a temporary
+ * file. Each instance builds its {@link JsonSourceManager} once and deletes the temporary file after each load and save
+ * (see {@link JsonWorkspace}). Loads and saves of the same instance are therefore run one after another.
+ * <p>
+ * Each instance counts the bytes of sample JSON, that it has loaded and saved, so that a {@link MeasuringSourceManager}
+ * can report them.
+ */
+public abstract class JsonStreamSourceManager implements SourceManager {
+
+    private final JsonSourceManager.Builder jsonSourceManagerBuilder;
+    private final JsonWorkspace workspace;
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    /**
+     * @param jsonSourceManagerBuilder The builder, that is used to create the {@link JsonSourceManager}s, that do the
+     *                                 actual (de)serialization. Serializers, deserializers and modules can be
+     *                                 registered on this builder as usual.
+     */
+    protected JsonStreamSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder) {
+        this.jsonSourceManagerBuilder = jsonSourceManagerBuilder;
+        this.workspace = new JsonWorkspace(jsonSourceManagerBuilder);
+    }
+
+    /**
+     * @return A new builder for {@link JsonSourceManager}s without custom serializers, deserializers or modules.
+     */
+    public static JsonSourceManager.Builder defaultBuilder() {
+        return JsonSourceManager.builder();
+    }
+
+    protected JsonSourceManager.Builder getJsonSourceManagerBuilder() {
+        return jsonSourceManagerBuilder;
+    }
+
+    JsonWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return The number of bytes of sample JSON, that have been loaded by this instance so far. Only the samples,
+     * that have actually been passed to DeepSampler, are counted, e.g. only the samples of the declared samplers, if a
+     * sample file is filtered.
+     */
+    public long getLoadedBytes() {
+        return loadedBytes.get();
+    }
+
+    /**
+     * @return The number of bytes of sample JSON, that have been saved by this instance so far.
+     */
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    /**
+     * Counts bytes, that have been loaded without {@link #loadJson(JsonWriter, PersistentSamplerContext)}, e.g. by
+     * {@link JsonSourceManager}s, that read their sample files on their own.
+     *
+     * @param bytes The number of loaded bytes
+     */
+    protected void countLoadedBytes(final long bytes) {
+        loadedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts the sizes of sample files, that have been read or written completely by {@link JsonSourceManager}s, that
+     * work on the sample files on their own. Counting must never fail a load or a save, so sample files, whose size
+     * cannot be read, are not counted.
+     *
+     * @param sampleFiles The sample files
+     * @return The sum of the sizes of sampleFiles in bytes
+     */
+    protected static long sizeOf(final Collection<Path> sampleFiles) {
+        long size = 0;
+
+        for (final Path sampleFile : sampleFiles) {
+            try {
+                size += Files.size(sampleFile);
+            } catch (IOException e) {
+                // The sample file is not counted.
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Counts bytes, that have been saved without {@link #saveJsonFile(Map, PersistentSamplerContext, JsonFileReader)}.
+     *
+     * @param bytes The number of saved bytes
+     */
+    protected void countSavedBytes(final long bytes) {
+        savedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Loads a {@link PersistentModel} from the JSON that is written by sampleJson.
+     *
+     * @param sampleJson               Writes a complete sample file in JSON-format to the passed {@link OutputStream}.
+     * @param persistentSamplerContext The context, that has been passed to {@link SourceManager#load(PersistentSamplerContext)}
+     * @return The loaded {@link PersistentModel}
+     */
+    protected PersistentModel loadJson(final JsonWriter sampleJson, final PersistentSamplerContext persistentSamplerContext) {
+        try {
+            return workspace.use((file, jsonSourceManager) -> {
+                try (CountingOutputStream out = new CountingOutputStream(Files.newOutputStream(file))) {
+                    sampleJson.writeTo(out);
+                    countLoadedBytes(out.getCount());
+                }
+
+                return jsonSourceManager.load(persistentSamplerContext);
+            });
+        } catch (IOException e) {
+            throw new PersistenceException("The samples could not be prepared for loading.", e);
+        }
+    }
+
+    /**
+     * Converts sampleMethodToSampleMap to JSON and passes the JSON to sampleJson.
+     *
+     * @param sampleMethodToSampleMap  The samples, that have been passed to {@link SourceManager#save(Map, PersistentSamplerContext)}
+     * @param persistentSamplerContext The context, that has been passed to {@link SourceManager#save(Map, PersistentSamplerContext)}
+     * @param sampleJson               Reads the complete sample file in JSON-format from the passed {@link InputStream}.
+     */
+    protected void saveJson(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap,
+                            final PersistentSamplerContext persistentSamplerContext,
+                            final JsonReader sampleJson) {
+        saveJsonFile(sampleMethodToSampleMap, persistentSamplerContext, jsonFile -> {
+            try (InputStream in = Files.newInputStream(jsonFile)) {
+                sampleJson.readFrom(in);
+            }
+        });
+    }
+
+    /**
+     * Converts sampleMethodToSampleMap to JSON and passes the file, that contains the JSON, to sampleJson. This can be
+     * used if the JSON has to be read more than once. The file is deleted as soon as sampleJson returns.
+     *
+     * @param sampleMethodToSampleMap  The samples, that have been passed to {@link SourceManager#save(Map, PersistentSamplerContext)}
+     * @param persistentSamplerContext The context, that has been passed to {@link SourceManager#save(Map, PersistentSamplerContext)}
+     * @param sampleJson               Reads the complete sample file in JSON-format from the passed file.
+     */
+    protected void saveJsonFile(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap,
+                                final PersistentSamplerContext persistentSamplerContext,
+                                final JsonFileReader sampleJson) {
+        try {
+            workspace.use((file, jsonSourceManager) -> {
+                jsonSourceManager.save(sampleMethodToSampleMap, persistentSamplerContext);
+                countSavedBytes(sizeOf(Collections.singleton(file)));
+                sampleJson.readFrom(file);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new PersistenceException("The samples could not be saved.", e);
+        }
+    }
+
+    /**
+     * Writes a sample file. The JSON is written to a temporary file in the same directory first, which then replaces
+     * the sample file by an atomic move. So the sample file is never seen half-written, and the previous sample file
+     * is kept, if writing fails. Missing parent directories are created.
+     *
+     * @param sampleFile The sample file
+     * @param sampleJson Writes the complete sample file
+     * @throws IOException if sampleFile cannot be written
+     */
+    protected static void writeSampleFile(final Path sampleFile, final JsonWriter sampleJson) throws IOException {
+        final Path directory = sampleFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        final Path tempFile = Files.createTempFile(directory, sampleFile.getFileName().toString(), ".tmp");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                sampleJson.writeTo(out);
+            }
+
+            moveSampleFile(tempFile, sampleFile);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Replaces sampleFile by tempFile. The file is moved atomically, if the file system supports it. Otherwise, it is
+     * replaced by a plain move.
+     *
+     * @param tempFile   A completely written sample file in the same directory as sampleFile
+     * @param sampleFile The sample file, that is replaced
+     * @throws IOException if tempFile cannot be moved
+     */
+    protected static void moveSampleFile(final Path tempFile, final Path sampleFile) throws IOException {
+        try {
+            Files.move(tempFile, sampleFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, sampleFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes a sample file, that is read from an {@link InputStream}, as described by {@link #writeSampleFile(Path, JsonWriter)}.
+     *
+     * @param sampleFile The sample file
+     * @param sampleJson The complete sample file
+     * @throws IOException if sampleFile cannot be written
+     */
+    protected static void writeSampleFile(final Path sampleFile, final InputStream sampleJson) throws IOException {
+        writeSampleFile(sampleFile, out -> copy(sampleJson, out));
+    }
+
+    /**
+     * Copies all bytes from in to out. Neither stream is closed.
+     *
+     * @param in  The source
+     * @param out The target
+     * @throws IOException if in cannot be read or out cannot be written
+     */
+    protected static void copy(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Opens a sample file for writing. Missing parent directories are created.
+     *
+     * @param sampleFile The sample file
+     * @return The {@link OutputStream} that writes sampleFile
+     * @throws IOException if sampleFile cannot be opened
+     */
+    protected static OutputStream newOutputStream(final Path sampleFile) throws IOException {
+        final Path parent = sampleFile.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        return Files.newOutputStream(sampleFile);
+    }
+
+    /**
+     * Writes a sample file in JSON-format to an {@link OutputStream}.
+     */
+    @FunctionalInterface
+    protected interface JsonWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads a sample file in JSON-format from an {@link InputStream}.
+     */
+    @FunctionalInterface
+    protected interface JsonReader {
+        void readFrom(InputStream in) throws IOException;
+    }
+
+    /**
+     * Reads a sample file in JSON-format from a temporary file.
+     */
+    @FunctionalInterface
+    protected interface JsonFileReader {
+        void readFrom(Path jsonFile) throws IOException;
+    }
+
+    /**
+     * Counts the bytes, that are read from another {@link InputStream}.
+     */
+    protected static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        public CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        /**
+         * @return The number of bytes, that have been read or skipped so far
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b >= 0) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int readLength = super.read(buffer, offset, length);
+
+            if (readLength > 0) {
+                count += readLength;
+            }
+
+            return readLength;
+        }
+
+        @Override
+        public long skip(final long length) throws IOException {
+            final long skipped = super.skip(length);
+            count += skipped;
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Counts the bytes, that are written to another {@link OutputStream}.
+     */
+    protected static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        public CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * @return The number of bytes, that have been written so far
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+    }
+}
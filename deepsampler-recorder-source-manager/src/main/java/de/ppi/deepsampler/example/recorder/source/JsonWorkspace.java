@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A temporary sample file together with the {@link JsonSourceManager} that reads and writes it.
+ * <p>
+ * Each {@link JsonStreamSourceManager} has its own workspace. The {@link JsonSourceManager} is built by the first load
+ * or save and is reused by all following loads and saves of the same {@link JsonStreamSourceManager}. The temporary
+ * sample file is deleted after each use, so no files are left behind between two uses.
+ * <p>
+ * The workspace is used by one thread at a time. Concurrent loads and saves of the same {@link JsonStreamSourceManager}
+ * wait for each other.
+ */
+final class JsonWorkspace {
+
+    private static final String TEMP_FILE_PREFIX = "deepsampler-";
+    private static final String TEMP_FILE_SUFFIX = ".json";
+
+    private final JsonSourceManager.Builder jsonSourceManagerBuilder;
+
+    private Path file;
+    private JsonSourceManager jsonSourceManager;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the {@link JsonSourceManager} of the workspace
+     */
+    JsonWorkspace(final JsonSourceManager.Builder jsonSourceManagerBuilder) {
+        this.jsonSourceManagerBuilder = jsonSourceManagerBuilder;
+    }
+
+    /**
+     * @return The temporary sample file, or null if the workspace has not been used yet. The file only exists while the
+     * workspace is used.
+     */
+    synchronized Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The {@link JsonSourceManager}, or null if the workspace has not been used yet.
+     */
+    synchronized JsonSourceManager getJsonSourceManager() {
+        return jsonSourceManager;
+    }
+
+    /**
+     * Runs task with the temporary sample file and the {@link JsonSourceManager} that reads and writes it. The
+     * temporary sample file is deleted, as soon as task returns.
+     *
+     * @param task The task, that uses the workspace
+     * @param <T>  The type of the result of task
+     * @return The result of task
+     * @throws IOException if task throws an {@link IOException}
+     */
+    synchronized <T> T use(final WorkspaceTask<T> task) throws IOException {
+        if (jsonSourceManager == null) {
+            file = createTempFileName();
+            jsonSourceManager = jsonSourceManagerBuilder.buildWithFile(file);
+        }
+
+        try {
+            return task.run(file, jsonSourceManager);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @return The name of a new temporary file. The file itself is deleted again, because the {@link JsonSourceManager}
+     * only needs it while it is used.
+     */
+    private static Path createTempFileName() {
+        try {
+            final Path tempFile = Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+            Files.delete(tempFile);
+
+            return tempFile;
+        } catch (IOException e) {
+            throw new PersistenceException("A temporary sample file could not be created.", e);
+        }
+    }
+
+    /**
+     * Uses the temporary sample file and the {@link JsonSourceManager} of a workspace.
+     *
+     * @param <T> The type of the result
+     */
+    @FunctionalInterface
+    interface WorkspaceTask<T> {
+        T run(Path file, JsonSourceManager jsonSourceManager) throws IOException;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An {@link IndexedSampleContainer} for long test runs, that load samples from one very large container again and
+ * again, e.g. many test classes, that share one container in the same JVM.
+ * <p>
+ * The container file is memory-mapped, so the recorded entries are kept off-heap by the operating system and not by
+ * the JVM. Only the entries, that are read by a load, are copied to the heap. The most recently copied entries are
+ * kept in a small on-heap cache, so that samples, that are loaded by many tests, are not copied again. Loads run
+ * concurrently, the entries are copied from the mapping without any lock.
+ * <p>
+ * A {@link MappedSampleContainer} is meant to be created once and shared, e.g. by passing it to
+ * {@link IndexedContainerSourceManager#IndexedContainerSourceManager(de.ppi.deepsampler.persistence.json.JsonSourceManager.Builder, IndexedSampleContainer)}.
+ * Each load still converts the entries, that it has read, to DeepSampler's model, so the mapping mainly pays off if
+ * the container is much larger than the entries, that are loaded by a single test.
+ * <p>
+ * The mapping is immutable. Each load captures the current mapping once and reads all entries from it. Since the
+ * container is only ever appended to, the bytes of a mapping are never rewritten. An entry, that has been appended
+ * after the mapping has been created, lies behind its end, in this case the grown file is mapped again and the new
+ * mapping replaces the old one for subsequent loads. Old mappings are released by the garbage collector.
+ * <p>
+ * Notice: on Windows, a file cannot be replaced or truncated, as long as it is mapped. Appending works, but
+ * {@link #compact()} fails, until the garbage collector has released all mappings of the container file. Containers,
+ * that are compacted regularly, should be compacted before they are mapped.
+ */
+public class MappedSampleContainer extends IndexedSampleContainer {
+
+    private static final long SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final int maxCachedEntries;
+
+    /**
+     * The most recently copied entries, mapped by their offsets. If the cache is full, the entries, that have been
+     * copied first, are evicted first.
+     */
+    private final Map<Long, byte[]> hotEntries = new ConcurrentHashMap<>();
+    private final Queue<Long> hotEntryOffsets = new ConcurrentLinkedQueue<>();
+
+    private volatile Mapping mapping;
+
+    /**
+     * @param containerFile    The container file
+     * @param maxCachedEntries The maximum number of entries, that are kept on the heap
+     */
+    public MappedSampleContainer(final Path containerFile, final int maxCachedEntries) {
+        super(containerFile);
+        this.maxCachedEntries = maxCachedEntries;
+    }
+
+    /**
+     * The compacted container has other offsets, so the mapping and the cached entries of the previous file are dropped.
+     */
+    @Override
+    protected synchronized void containerReplaced() {
+        mapping = null;
+        hotEntries.clear();
+        hotEntryOffsets.clear();
+    }
+
+    @Override
+    protected EntryReader openEntryReader() throws IOException {
+        final Mapping capturedMapping = getMapping(0);
+
+        return new EntryReader() {
+            private Mapping currentMapping = capturedMapping;
+
+            @Override
+            public byte[] read(final long offset, final int length) throws IOException {
+                if (offset + length > currentMapping.size) {
+                    currentMapping = getMapping(offset + length);
+                }
+
+                return readEntry(currentMapping, offset, length);
+            }
+
+            @Override
+            public void close() {
+                // The mapping is kept for subsequent loads.
+            }
+        };
+    }
+
+    /**
+     * @param minimumSize The number of bytes, that must be covered by the mapping
+     * @return The current mapping, or a new mapping of the container file, if the current mapping is too small.
+     */
+    private synchronized Mapping getMapping(final long minimumSize) throws IOException {
+        if (mapping == null || mapping.size < minimumSize) {
+            mapping = Mapping.map(getContainerFile());
+        }
+
+        return mapping;
+    }
+
+    private byte[] readEntry(final Mapping entryMapping, final long offset, final int length) {
+        final byte[] cachedEntry = hotEntries.get(offset);
+
+        if (cachedEntry != null) {
+            return cachedEntry;
+        }
+
+        final byte[] entry = new byte[length];
+        int copied = 0;
+
+        // An entry may span two segments, if the container is larger than 2 GB.
+        while (copied < length) {
+            final long position = offset + copied;
+            final ByteBuffer segment = entryMapping.segments[(int) (position / SEGMENT_SIZE)].duplicate();
+            segment.position((int) (position % SEGMENT_SIZE));
+
+            final int chunkLength = Math.min(segment.remaining(), length - copied);
+            segment.get(entry, copied, chunkLength);
+            copied += chunkLength;
+        }
+
+        cache(offset, entry);
+
+        return entry;
+    }
+
+    private void cache(final long offset, final byte[] entry) {
+        if (maxCachedEntries <= 0 || hotEntries.putIfAbsent(offset, entry) != null) {
+            return;
+        }
+
+        hotEntryOffsets.add(offset);
+
+        while (hotEntries.size() > maxCachedEntries) {
+            final Long eldestOffset = hotEntryOffsets.poll();
+
+            if (eldestOffset == null) {
+                return;
+            }
+
+            hotEntries.remove(eldestOffset);
+        }
+    }
+
+    /**
+     * The container file, as it has been mapped at one point in time.
+     */
+    private static final class Mapping {
+        private final long size;
+        private final ByteBuffer[] segments;
+
+        private Mapping(final long size, final ByteBuffer[] segments) {
+            this.size = size;
+            this.segments = segments;
+        }
+
+        private static Mapping map(final Path containerFile) throws IOException {
+            try (FileChannel channel = FileChannel.open(containerFile, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                final ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+
+                for (int i = 0; i < segments.length; i++) {
+                    final long segmentOffset = i * SEGMENT_SIZE;
+                    final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentOffset, Math.min(SEGMENT_SIZE, size - segmentOffset));
+                    segments[i] = segment;
+                }
+
+                return new Mapping(size, segments);
+            }
+        }
+    }
+}
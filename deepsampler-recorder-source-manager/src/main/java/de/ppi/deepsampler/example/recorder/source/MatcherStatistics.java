@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The accumulated measurements of one matcher, that are published by {@link JmxSampleMetrics}.
+ */
+public class MatcherStatistics implements MatcherStatisticsMXBean {
+
+    private final LongAdder matches = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    void record(final boolean matched, final long latencyNanos) {
+        if (matched) {
+            matches.increment();
+        }
+
+        latencies.record(latencyNanos);
+    }
+
+    @Override
+    public long getCalls() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return latencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return latencies.getBuckets();
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+/**
+ * The JMX-view of the {@link MatcherStatistics} of one matcher.
+ */
+public interface MatcherStatisticsMXBean {
+
+    long getCalls();
+
+    long getMatches();
+
+    double getMeanLatencyMillis();
+
+    double getMaxLatencyMillis();
+
+    /**
+     * @return The latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getLatencyHistogram();
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.bean.PersistentBeanConverter;
+import de.ppi.deepsampler.persistence.bean.ext.StandardBeanConverterExtension;
+
+import java.lang.reflect.ParameterizedType;
+
+/**
+ * A BeanConverterExtension, that measures another BeanConverterExtension: the time, that is needed to convert beans
+ * to their persistent form and to revert them. The measurements are reported to a {@link SampleMetrics} under the
+ * class name of the measured extension, by default to {@link SampleMetrics#getDefault()}.
+ * <p>
+ * BeanConverterExtensions are instantiated by their default constructor, if they are activated by the annotation
+ * <code>@UseBeanConverterExtension</code>, so the measured extension is passed by a subclass:
+ * <pre>
+ * public class MeasuredStarDateBeanConverterExtension extends MeasuringBeanConverterExtension {
+ *     public MeasuredStarDateBeanConverterExtension() {
+ *         super(new StarDateBeanConverterExtension());
+ *     }
+ * }
+ * </pre>
+ */
+public class MeasuringBeanConverterExtension extends StandardBeanConverterExtension {
+
+    private final StandardBeanConverterExtension extension;
+    private final String name;
+    private final SampleMetrics sampleMetrics;
+
+    /**
+     * @param extension The BeanConverterExtension, that is measured
+     */
+    public MeasuringBeanConverterExtension(final StandardBeanConverterExtension extension) {
+        this(extension, SampleMetrics.getDefault());
+    }
+
+    /**
+     * @param extension     The BeanConverterExtension, that is measured
+     * @param sampleMetrics Receives the measurements
+     */
+    public MeasuringBeanConverterExtension(final StandardBeanConverterExtension extension, final SampleMetrics sampleMetrics) {
+        this.extension = extension;
+        this.name = extension.getClass().getName();
+        this.sampleMetrics = sampleMetrics;
+    }
+
+    @Override
+    public boolean isProcessable(final Class<?> beanClass, final ParameterizedType beanType) {
+        return extension.isProcessable(beanClass, beanType);
+    }
+
+    @Override
+    public Object convert(final Object originalBean, final ParameterizedType beanType, final PersistentBeanConverter persistentBeanConverter) {
+        final long startNanos = System.nanoTime();
+
+        try {
+            return extension.convert(originalBean, beanType, persistentBeanConverter);
+        } finally {
+            sampleMetrics.recordConversion(name, System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public <T> T revert(final Object persistentBean, final Class<T> targetClass, final ParameterizedType targetType,
+                        final PersistentBeanConverter persistentBeanConverter) {
+        final long startNanos = System.nanoTime();
+
+        try {
+            return extension.revert(persistentBean, targetClass, targetType, persistentBeanConverter);
+        } finally {
+            sampleMetrics.recordReversion(name, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.util.function.BiPredicate;
+
+/**
+ * Measures the time, that is spent in custom matchers, like a matcher, that is passed to
+ * <code>PersistentMatchers.anyRecorded()</code>. The measured matcher is passed as a method reference:
+ * <pre>
+ * final BiPredicate&lt;PersonId, PersonId&gt; personIdMatcher = MeasuringMatchers.measure("personIdMatches", this::personIdMatches);
+ * PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(personIdMatcher::test))).hasId("loadPersonById");
+ * </pre>
+ */
+public final class MeasuringMatchers {
+
+    private MeasuringMatchers() {
+        // This is a utility class, it is not meant to be instantiated.
+    }
+
+    /**
+     * Measures a matcher and reports the measurements to {@link SampleMetrics#getDefault()}.
+     *
+     * @param name    The name of the matcher, under which the measurements are reported
+     * @param matcher The matcher, that compares a recorded parameter with an actual parameter
+     * @param <T>     The type of the parameter
+     * @return A matcher, that calls matcher and measures it
+     */
+    public static <T> BiPredicate<T, T> measure(final String name, final BiPredicate<T, T> matcher) {
+        return measure(name, matcher, SampleMetrics.getDefault());
+    }
+
+    /**
+     * @param name          The name of the matcher, under which the measurements are reported
+     * @param matcher       The matcher, that compares a recorded parameter with an actual parameter
+     * @param sampleMetrics Receives the measurements
+     * @param <T>           The type of the parameter
+     * @return A matcher, that calls matcher and measures it
+     */
+    public static <T> BiPredicate<T, T> measure(final String name, final BiPredicate<T, T> matcher, final SampleMetrics sampleMetrics) {
+        return (recorded, actual) -> {
+            final long startNanos = System.nanoTime();
+            boolean matched = false;
+
+            try {
+                matched = matcher.test(recorded, actual);
+                return matched;
+            } finally {
+                sampleMetrics.recordMatch(name, matched, System.nanoTime() - startNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SourceManager} that measures another {@link SourceManager}: the number of bytes and method calls, that
+ * are loaded and saved, and the time that is needed to do so. The measurements are reported to a
+ * {@link SampleMetrics}, by default to {@link SampleMetrics#getDefault()}.
+ * <p>
+ * The bytes of a {@link JsonStreamSourceManager} are the bytes, that it has actually loaded or saved, as they are
+ * counted by {@link JsonStreamSourceManager#getLoadedBytes()} and {@link JsonStreamSourceManager#getSavedBytes()}. So
+ * only the samples of the declared samplers are counted, if a {@link SamplerIdFilteringSourceManager} or an
+ * {@link IndexedContainerSourceManager} loads a part of the samples. If the same {@link JsonStreamSourceManager} is
+ * used by several threads at once, the bytes of concurrent loads and saves may be attributed to each other. Other
+ * {@link SourceManager}s, like a plain {@link de.ppi.deepsampler.persistence.json.JsonSourceManager}, read and write
+ * the whole sample file, so its size is reported.
+ * <p>
+ * Measuring must never fail a load or a save, that has succeeded. So errors of the measurement, or of the
+ * {@link SampleMetrics}, are logged and ignored.
+ */
+public class MeasuringSourceManager implements SourceManager {
+
+    private static final Logger LOGGER = Logger.getLogger(MeasuringSourceManager.class.getName());
+
+    private final Path sampleFile;
+    private final SourceManager sourceManager;
+    private final SampleMetrics sampleMetrics;
+
+    /**
+     * @param sampleFile    The file or directory, that is read and written by sourceManager
+     * @param sourceManager The {@link SourceManager}, that is measured
+     */
+    public MeasuringSourceManager(final Path sampleFile, final SourceManager sourceManager) {
+        this(sampleFile, sourceManager, SampleMetrics.getDefault());
+    }
+
+    /**
+     * @param sampleFile    The file or directory, that is read and written by sourceManager
+     * @param sourceManager The {@link SourceManager}, that is measured
+     * @param sampleMetrics Receives the measurements
+     */
+    public MeasuringSourceManager(final Path sampleFile, final SourceManager sourceManager, final SampleMetrics sampleMetrics) {
+        this.sampleFile = sampleFile;
+        this.sourceManager = sourceManager;
+        this.sampleMetrics = sampleMetrics;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        final long startNanos = System.nanoTime();
+        final long savedBytesBefore = getCountedBytes(JsonStreamSourceManager::getSavedBytes);
+
+        sourceManager.save(sampleMethodToSampleMap, persistentSamplerContext);
+
+        final long latencyNanos = System.nanoTime() - startNanos;
+
+        report(() -> {
+            final long entries = sampleMethodToSampleMap.values().stream().mapToLong(List::size).sum();
+            final long bytes = getBytes(JsonStreamSourceManager::getSavedBytes, savedBytesBefore);
+
+            sampleMetrics.recordSave(getSourceName(), bytes, entries, latencyNanos);
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final long startNanos = System.nanoTime();
+        final long loadedBytesBefore = getCountedBytes(JsonStreamSourceManager::getLoadedBytes);
+
+        final PersistentModel persistentModel = sourceManager.load(persistentSamplerContext);
+
+        final long latencyNanos = System.nanoTime() - startNanos;
+
+        report(() -> {
+            final long entries = persistentModel.getSampleMethodToSampleMap().values().stream()
+                    .mapToLong(sample -> sample.getAllCalls().size())
+                    .sum();
+            final long bytes = getBytes(JsonStreamSourceManager::getLoadedBytes, loadedBytesBefore);
+
+            sampleMetrics.recordLoad(getSourceName(), bytes, entries, latencyNanos);
+        });
+
+        return persistentModel;
+    }
+
+    /**
+     * @return The name, under which the measurements are reported.
+     */
+    public String getSourceName() {
+        return sampleFile.toAbsolutePath().normalize().toString();
+    }
+
+    private long getCountedBytes(final ToLongFunction<JsonStreamSourceManager> counter) {
+        return sourceManager instanceof JsonStreamSourceManager ? counter.applyAsLong((JsonStreamSourceManager) sourceManager) : 0;
+    }
+
+    /**
+     * @param counter      Reads the counter of a {@link JsonStreamSourceManager}
+     * @param countedBytes The value of the counter before the load or the save
+     * @return The bytes, that have been loaded or saved
+     */
+    private long getBytes(final ToLongFunction<JsonStreamSourceManager> counter, final long countedBytes) throws IOException {
+        if (sourceManager instanceof JsonStreamSourceManager) {
+            return getCountedBytes(counter) - countedBytes;
+        }
+
+        return Files.isRegularFile(sampleFile) ? Files.size(sampleFile) : 0;
+    }
+
+    private void report(final Measurement measurement) {
+        try {
+            measurement.report();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "The samples of " + sampleFile + " could not be measured.", e);
+        }
+    }
+
+    /**
+     * Reports a measurement to the {@link SampleMetrics}.
+     */
+    @FunctionalInterface
+    private interface Measurement {
+        void report() throws IOException;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.model.PersistentActualSample;
+import de.ppi.deepsampler.persistence.model.PersistentMethodCall;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+import de.ppi.deepsampler.persistence.model.PersistentSampleMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PersistentModel} that combines several {@link PersistentModel}s, e.g. models that have been loaded from
+ * different files. If a sampler appears in more than one model, the method calls of all models are combined.
+ */
+public class MergedPersistentModel implements PersistentModel {
+
+    private final String id;
+    private final Map<PersistentSampleMethod, PersistentActualSample> sampleMethodToSampleMap;
+
+    /**
+     * @param id     The id of the merged model
+     * @param models The models that are merged. The order of the models is kept.
+     */
+    public MergedPersistentModel(final String id, final List<PersistentModel> models) {
+        this.id = id;
+        this.sampleMethodToSampleMap = Collections.unmodifiableMap(merge(models));
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Map<PersistentSampleMethod, PersistentActualSample> getSampleMethodToSampleMap() {
+        return sampleMethodToSampleMap;
+    }
+
+    private static Map<PersistentSampleMethod, PersistentActualSample> merge(final List<PersistentModel> models) {
+        final Map<String, PersistentSampleMethod> sampleMethods = new LinkedHashMap<>();
+        final Map<String, List<PersistentMethodCall>> calls = new LinkedHashMap<>();
+
+        for (final PersistentModel model : models) {
+            for (final Map.Entry<PersistentSampleMethod, PersistentActualSample> sample : model.getSampleMethodToSampleMap().entrySet()) {
+                final String samplerId = sample.getKey().getSampleMethodId();
+
+                sampleMethods.putIfAbsent(samplerId, sample.getKey());
+                calls.computeIfAbsent(samplerId, key -> new ArrayList<>()).addAll(sample.getValue().getAllCalls());
+            }
+        }
+
+        final Map<PersistentSampleMethod, PersistentActualSample> mergedSamples = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, PersistentSampleMethod> sampleMethod : sampleMethods.entrySet()) {
+            final List<PersistentMethodCall> sampleCalls = Collections.unmodifiableList(calls.get(sampleMethod.getKey()));
+            mergedSamples.put(sampleMethod.getValue(), () -> sampleCalls);
+        }
+
+        return mergedSamples;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that merges a new recording into an existing sample file,
+ * instead of overwriting it.
+ * <p>
+ * A recorded method call replaces the method call in the existing file, that has the same sampler id and the same
+ * parameters. All other method calls of the existing file are kept, new method calls are appended. If the merged file
+ * is the same as the existing file, the file is not written at all, so its timestamp stays the same and build caches,
+ * that depend on it, stay valid.
+ * <p>
+ * Merged files are always written in the same canonical form, so re-recording unchanged samples results in the same
+ * bytes.
+ */
+public class MergingSourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file. It is created by the first recording.
+     */
+    public MergingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, this::merge);
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        return loadJson(out -> Files.copy(sampleFile, out), persistentSamplerContext);
+    }
+
+    private synchronized void merge(final InputStream recordedJson) throws IOException {
+        final Map<String, Map<String, byte[]>> calls = new LinkedHashMap<>();
+        final byte[] existingJson = Files.exists(sampleFile) ? Files.readAllBytes(sampleFile) : null;
+        final String existingId = existingJson != null ? readCalls(new ByteArrayInputStream(existingJson), calls) : null;
+        final String recordedId = readCalls(recordedJson, calls);
+
+        final ByteArrayOutputStream mergedJson = new ByteArrayOutputStream();
+        SampleJson.writeRawCalls(mergedJson, existingId != null ? existingId : recordedId, toCallLists(calls));
+
+        if (existingJson != null && SampleJson.hash(existingJson).equals(SampleJson.hash(mergedJson.toByteArray()))) {
+            return;
+        }
+
+        writeSampleFile(sampleFile, mergedJson::writeTo);
+    }
+
+    private static String readCalls(final InputStream sampleJson, final Map<String, Map<String, byte[]>> calls) throws IOException {
+        return SampleJson.readCalls(sampleJson, (samplerId, call) -> {
+            final String parameterHash = SampleJson.hash(SampleJson.toBytes(call.path(SampleJson.PARAMETER)));
+
+            calls.computeIfAbsent(samplerId, id -> new LinkedHashMap<>()).put(parameterHash, SampleJson.toBytes(call));
+        });
+    }
+
+    private static Map<String, List<byte[]>> toCallLists(final Map<String, Map<String, byte[]>> calls) {
+        final Map<String, List<byte[]>> callLists = new LinkedHashMap<>();
+        calls.forEach((samplerId, sampleCalls) -> callLists.put(samplerId, new ArrayList<>(sampleCalls.values())));
+
+        return callLists;
+    }
+}
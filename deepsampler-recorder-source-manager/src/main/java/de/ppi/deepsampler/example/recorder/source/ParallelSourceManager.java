@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link SourceManager} that loads samples from several other {@link SourceManager}s concurrently, e.g. if one test
+ * class uses several sample files. The loaded samples are combined to one {@link MergedPersistentModel}, so all
+ * samples are passed to DeepSampler in one step.
+ * <p>
+ * The {@link SourceManager}s are loaded on a {@link ForkJoinPool}. By default, the common pool is used, so the
+ * number of threads depends on the number of available cores.
+ * <p>
+ * Notice: DeepSampler keeps the declared samplers in a thread-local SampleRepository. The {@link SourceManager}s run on
+ * the threads of the pool, where this repository is empty, so they must not depend on the declared samplers. E.g. a
+ * {@link SamplerIdFilteringSourceManager} would not find any declared sampler id. Everything, that depends on the
+ * declared samplers, has to be resolved on the calling thread, before the {@link SourceManager}s are passed to the
+ * {@link ParallelSourceManager}.
+ * <p>
+ * This {@link SourceManager} can only be used for loading, since it is not defined, which of the
+ * {@link SourceManager}s should receive a recording.
+ */
+public class ParallelSourceManager implements SourceManager {
+
+    private final ForkJoinPool forkJoinPool;
+    private final List<SourceManager> sourceManagers;
+
+    /**
+     * Creates a {@link ParallelSourceManager} that uses the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param sourceManagers The {@link SourceManager}s that are loaded concurrently
+     */
+    public ParallelSourceManager(final SourceManager... sourceManagers) {
+        this(ForkJoinPool.commonPool(), Arrays.asList(sourceManagers));
+    }
+
+    /**
+     * @param forkJoinPool   The pool, that is used to load the {@link SourceManager}s
+     * @param sourceManagers The {@link SourceManager}s that are loaded concurrently
+     */
+    public ParallelSourceManager(final ForkJoinPool forkJoinPool, final List<? extends SourceManager> sourceManagers) {
+        this.forkJoinPool = forkJoinPool;
+        this.sourceManagers = new ArrayList<>(sourceManagers);
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        throw new PersistenceException("The ParallelSourceManager can only be used to load samples.");
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final List<CompletableFuture<PersistentModel>> loadingModels = sourceManagers.stream()
+                .map(sourceManager -> loadAsync(sourceManager, persistentSamplerContext, forkJoinPool))
+                .collect(Collectors.toList());
+
+        return join(loadingModels);
+    }
+
+    /**
+     * Starts loading sourceManager on forkJoinPool.
+     *
+     * @param sourceManager            The {@link SourceManager} that is loaded
+     * @param persistentSamplerContext The context, that is passed to sourceManager
+     * @param forkJoinPool             The pool, that is used to load sourceManager
+     * @return The {@link PersistentModel}, that is being loaded
+     */
+    static CompletableFuture<PersistentModel> loadAsync(final SourceManager sourceManager, final PersistentSamplerContext persistentSamplerContext,
+                                                        final ForkJoinPool forkJoinPool) {
+        return CompletableFuture.supplyAsync(() -> sourceManager.load(persistentSamplerContext), forkJoinPool);
+    }
+
+    /**
+     * Waits until all loadingModels have been loaded and combines them to one {@link MergedPersistentModel}.
+     *
+     * @param loadingModels The {@link PersistentModel}s, that are being loaded
+     * @return The combined {@link PersistentModel}
+     */
+    static PersistentModel join(final List<CompletableFuture<PersistentModel>> loadingModels) {
+        try {
+            final List<PersistentModel> models = loadingModels.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+
+            final String id = models.isEmpty() ? UUID.randomUUID().toString() : models.get(0).getId();
+
+            return new MergedPersistentModel(id, models);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new PersistenceException("The samples could not be loaded.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that stores sample files in a remote, content-addressed
+ * sample store, so that many build agents can share the same recordings.
+ * <p>
+ * The sample store is a simple HTTP-server with two kinds of resources:
+ * <ul>
+ *     <li><code>objects/&lt;sha-256&gt;</code> contains a sample file. The name of the resource is the SHA-256 hash of its content.</li>
+ *     <li><code>refs/&lt;name&gt;</code> contains the hash of the current sample file with the given name.</li>
+ * </ul>
+ * Both kinds are read by GET and written by PUT. Since objects never change, they are kept in a local cache directory.
+ * Objects are streamed to the cache and hashed while they are downloaded, and they are moved into the cache only if
+ * they match their hash. So a cached object is trusted afterwards and is not read again, before it is loaded.
+ * Hashes, that are read from the store, are only accepted if they consist of 64 lowercase hex characters, so a
+ * manipulated ref cannot point to a file outside of the cache directory.
+ * Objects, that already exist in the store, are not uploaded again. New objects are streamed from the cache, so sample
+ * files are never held in memory as a whole.
+ * <p>
+ * A stalled sample store must not block a build forever, so all requests fail, if the store cannot be connected within
+ * {@link #DEFAULT_CONNECT_TIMEOUT} or doesn't answer within {@link #DEFAULT_READ_TIMEOUT}. Both timeouts can be
+ * configured.
+ */
+public class RemoteSourceManager extends JsonStreamSourceManager {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+    private static final String OBJECTS = "objects/";
+    private static final String REFS = "refs/";
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final URI storeUri;
+    private final String sampleName;
+    private final Path cacheDirectory;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+
+    /**
+     * Creates a {@link RemoteSourceManager} with the {@link #DEFAULT_CONNECT_TIMEOUT} and the {@link #DEFAULT_READ_TIMEOUT}.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param storeUri                 The base URI of the sample store, e.g. http://samples.example.com/store/
+     * @param sampleName               The name of the sample file in the store
+     * @param cacheDirectory           The local directory, that caches the objects of the store
+     */
+    public RemoteSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final URI storeUri, final String sampleName,
+                               final Path cacheDirectory) {
+        this(jsonSourceManagerBuilder, storeUri, sampleName, cacheDirectory, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param storeUri                 The base URI of the sample store, e.g. http://samples.example.com/store/
+     * @param sampleName               The name of the sample file in the store
+     * @param cacheDirectory           The local directory, that caches the objects of the store
+     * @param connectTimeout           The maximum time to wait for a connection to the store
+     * @param readTimeout              The maximum time to wait for the store to send data
+     */
+    public RemoteSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final URI storeUri, final String sampleName,
+                               final Path cacheDirectory, final Duration connectTimeout, final Duration readTimeout) {
+        super(jsonSourceManagerBuilder);
+        this.storeUri = storeUri.toString().endsWith("/") ? storeUri : URI.create(storeUri + "/");
+        this.sampleName = sampleName;
+        this.cacheDirectory = cacheDirectory;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJsonFile(sampleMethodToSampleMap, persistentSamplerContext, jsonFile -> {
+            final String hash = hash(jsonFile);
+            final Path cachedObject = cacheDirectory.resolve(hash);
+
+            if (!Files.exists(cachedObject)) {
+                writeSampleFile(cachedObject, out -> Files.copy(jsonFile, out));
+            }
+
+            if (!exists(OBJECTS + hash)) {
+                put(OBJECTS + hash, Files.size(cachedObject), out -> Files.copy(cachedObject, out));
+            }
+
+            final byte[] ref = hash.getBytes(StandardCharsets.UTF_8);
+            put(REFS + encode(sampleName), ref.length, out -> out.write(ref));
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        try {
+            final ByteArrayOutputStream ref = new ByteArrayOutputStream();
+            get(REFS + encode(sampleName), ref);
+
+            final Path cachedObject = getCachedObject(new String(ref.toByteArray(), StandardCharsets.UTF_8).trim());
+
+            return loadJson(out -> Files.copy(cachedObject, out), persistentSamplerContext);
+        } catch (IOException e) {
+            throw new PersistenceException("The samples " + sampleName + " could not be loaded from " + storeUri + ".", e);
+        }
+    }
+
+    /**
+     * @param hash The hash of an object
+     * @return The cached object. If the object hasn't been cached yet, it is downloaded.
+     * @throws PersistenceException if hash is not a SHA-256 hash in hex, or if the downloaded object doesn't match it.
+     *                              In this case, nothing is written to the cache.
+     */
+    Path getCachedObject(final String hash) throws IOException {
+        if (!SHA_256.matcher(hash).matches()) {
+            throw new PersistenceException("The sample store %s returned %s, which is not a SHA-256 hash.", storeUri, hash);
+        }
+
+        final Path cachedObject = cacheDirectory.resolve(hash);
+
+        if (Files.exists(cachedObject)) {
+            return cachedObject;
+        }
+
+        writeSampleFile(cachedObject, out -> {
+            final MessageDigest digest = SampleJson.newDigest();
+            get(OBJECTS + hash, new DigestOutputStream(out, digest));
+
+            if (!hash.equals(SampleJson.toHex(digest.digest()))) {
+                throw new PersistenceException("The object %s in the sample store %s does not match its hash.", hash, storeUri);
+            }
+        });
+
+        return cachedObject;
+    }
+
+    private static String hash(final Path file) throws IOException {
+        final MessageDigest digest = SampleJson.newDigest();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, length);
+            }
+        }
+
+        return SampleJson.toHex(digest.digest());
+    }
+    private boolean exists(final String resource) throws IOException {
+        final HttpURLConnection connection = open(resource, "HEAD");
+
+        try {
+            final int status = connection.getResponseCode();
+
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+
+            checkStatus(resource, status);
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Streams a resource of the store to out. out is not closed.
+     */
+    private void get(final String resource, final OutputStream out) throws IOException {
+        final HttpURLConnection connection = open(resource, "GET");
+
+        try {
+            checkStatus(resource, connection.getResponseCode());
+
+            try (InputStream in = connection.getInputStream()) {
+                copy(in, out);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void put(final String resource, final long length, final JsonWriter content) throws IOException {
+        final HttpURLConnection connection = open(resource, "PUT");
+
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(length);
+
+            try (OutputStream out = connection.getOutputStream()) {
+                content.writeTo(out);
+            }
+
+            checkStatus(resource, connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(final String resource, final String method) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) storeUri.resolve(resource).toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout((int) connectTimeout.toMillis());
+        connection.setReadTimeout((int) readTimeout.toMillis());
+
+        return connection;
+    }
+
+    private static String encode(final String sampleName) throws IOException {
+        return URLEncoder.encode(sampleName, StandardCharsets.UTF_8.name()).replace("+", "%20");
+    }
+
+    private void checkStatus(final String resource, final int status) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException("The sample store " + storeUri + " answered " + status + " for " + resource + ".");
+        }
+    }
+}
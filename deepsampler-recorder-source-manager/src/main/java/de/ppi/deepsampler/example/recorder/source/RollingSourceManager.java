@@ -0,0 +1,323 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link SourceManager} for long recording sessions, e.g. soak tests. Instead of one huge sample file, the
+ * recording is written to numbered segments. A new segment is started, as soon as the current segment has reached a
+ * maximum number of method calls or a maximum size. If a manifest file is named <code>soak.manifest</code>, the
+ * segments are written to <code>soak-&lt;id&gt;-00001.json</code>, <code>soak-&lt;id&gt;-00002.json</code> and so on,
+ * where <code>&lt;id&gt;</code> is a random id of the recording.
+ * <p>
+ * Notice: the segments are written at save time, after DeepSampler has buffered all method calls of the whole
+ * recording session in memory. So segments keep single sample files small, but they don't reduce the memory, that is
+ * used while a recording is running.
+ * <p>
+ * Each segment is a complete sample file, so it can be loaded by a {@link JsonSourceManager} on its own. The manifest
+ * lists all segments together with the ids of the samplers, that have been recorded in each segment. Loading the
+ * manifest only reads the segments, that contain samplers, that have been defined by the test, and these segments
+ * are loaded concurrently by a {@link ParallelSourceManager}.
+ * <p>
+ * Each recording replaces all segments of the manifest. The manifest is replaced only after all segments of the new
+ * recording have been written, and the segments of the previous recording are deleted afterwards. Since the segments
+ * of each recording have their own names, a failing recording never damages the previous one.
+ */
+public class RollingSourceManager extends JsonStreamSourceManager {
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String SEGMENT_SUFFIX = ".json";
+    private static final String COLUMN_SEPARATOR = "\t";
+    private static final String SAMPLER_ID_SEPARATOR = ",";
+
+    private final Path manifestFile;
+    private final long maxSegmentBytes;
+    private final int maxCallsPerSegment;
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Creates a {@link RollingSourceManager} that loads the segments on the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param manifestFile             The manifest, that lists the segments. The segments are stored in the same directory.
+     * @param maxSegmentBytes          A new segment is started, if the serialized method calls of the current segment
+     *                                 would exceed this size.
+     * @param maxCallsPerSegment       A new segment is started, if the current segment contains this number of method calls.
+     */
+    public RollingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path manifestFile,
+                                final long maxSegmentBytes, final int maxCallsPerSegment) {
+        this(jsonSourceManagerBuilder, manifestFile, maxSegmentBytes, maxCallsPerSegment, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param manifestFile             The manifest, that lists the segments. The segments are stored in the same directory.
+     * @param maxSegmentBytes          A new segment is started, if the serialized method calls of the current segment
+     *                                 would exceed this size.
+     * @param maxCallsPerSegment       A new segment is started, if the current segment contains this number of method calls.
+     * @param forkJoinPool             The pool that loads the segments
+     */
+    public RollingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path manifestFile,
+                                final long maxSegmentBytes, final int maxCallsPerSegment, final ForkJoinPool forkJoinPool) {
+        super(jsonSourceManagerBuilder);
+        this.manifestFile = manifestFile;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxCallsPerSegment = maxCallsPerSegment;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, in -> {
+            final List<Segment> staleSegments = readManifest();
+            final SegmentWriter segmentWriter = new SegmentWriter(UUID.randomUUID().toString());
+
+            try {
+                SampleJson.readCalls(in, segmentWriter::write);
+                writeManifest(segmentWriter.finish());
+            } catch (IOException | RuntimeException e) {
+                segmentWriter.deleteSegments();
+                throw e;
+            }
+
+            for (final Segment staleSegment : staleSegments) {
+                Files.deleteIfExists(resolve(staleSegment.fileName));
+            }
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final List<Segment> segments = readManifest();
+
+        if (segments.isEmpty()) {
+            throw new PersistenceException("The manifest " + manifestFile + " does not list any segments.");
+        }
+
+        final Set<String> declaredSamplerIds = SamplerIdFilteringSourceManager.getDeclaredSamplerIds();
+
+        if (declaredSamplerIds.isEmpty()) {
+            throw new PersistenceException("No samplers have been declared, so no segments of the manifest " + manifestFile + " can be loaded.");
+        }
+
+        final List<Path> segmentFiles = segments.stream()
+                .filter(segment -> !Collections.disjoint(segment.samplerIds, declaredSamplerIds))
+                .map(segment -> resolve(segment.fileName))
+                .collect(Collectors.toList());
+        final List<SourceManager> segmentSourceManagers = segmentFiles.stream()
+                .map(segmentFile -> getJsonSourceManagerBuilder().buildWithFile(segmentFile))
+                .collect(Collectors.toList());
+
+        final PersistentModel persistentModel = new ParallelSourceManager(forkJoinPool, segmentSourceManagers).load(persistentSamplerContext);
+        countLoadedBytes(sizeOf(segmentFiles));
+
+        return persistentModel;
+    }
+
+    /**
+     * @return All segments, that are listed in the manifest, in the order in which they have been recorded. Each
+     * segment can be loaded on its own by a {@link JsonSourceManager}.
+     */
+    public List<Path> getSegmentFiles() {
+        return readManifest().stream()
+                .map(segment -> resolve(segment.fileName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param number The number of a segment of the latest recording, starting with 1
+     * @return The file of the segment, as it is listed in the manifest
+     */
+    public Path getSegmentFile(final int number) {
+        final List<Path> segmentFiles = getSegmentFiles();
+
+        if (number < 1 || number > segmentFiles.size()) {
+            throw new PersistenceException("The manifest %s does not list a segment with the number %d.", manifestFile, number);
+        }
+
+        return segmentFiles.get(number - 1);
+    }
+
+    private Path getSegmentFile(final String recordingId, final int number) {
+        String baseName = manifestFile.getFileName().toString();
+
+        if (baseName.endsWith(MANIFEST_SUFFIX)) {
+            baseName = baseName.substring(0, baseName.length() - MANIFEST_SUFFIX.length());
+        }
+
+        return resolve(String.format("%s-%s-%05d%s", baseName, recordingId, number, SEGMENT_SUFFIX));
+    }
+
+    private Path resolve(final String fileName) {
+        final Path directory = manifestFile.toAbsolutePath().getParent();
+        return directory != null ? directory.resolve(fileName) : manifestFile.resolveSibling(fileName);
+    }
+
+    private List<Segment> readManifest() {
+        final List<Segment> segments = new ArrayList<>();
+
+        if (!Files.exists(manifestFile)) {
+            return segments;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    segments.add(Segment.parse(line));
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The manifest " + manifestFile + " could not be read.", e);
+        }
+
+        return segments;
+    }
+
+    /**
+     * The manifest is replaced by {@link #writeSampleFile(Path, JsonWriter)}, so a concurrent load either reads the old
+     * or the new manifest.
+     */
+    private void writeManifest(final List<Segment> segments) throws IOException {
+        writeSampleFile(manifestFile, out -> {
+            final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+            for (final Segment segment : segments) {
+                writer.write(segment.format());
+                writer.newLine();
+            }
+
+            writer.flush();
+        });
+    }
+
+    /**
+     * Collects the method calls of the current segment and writes the segment, as soon as it is full.
+     */
+    private class SegmentWriter {
+        private final String id;
+        private final List<Segment> segments = new ArrayList<>();
+
+        private Map<String, List<byte[]>> calls = new LinkedHashMap<>();
+        private long bytes;
+        private int callCount;
+
+        private SegmentWriter(final String id) {
+            this.id = id;
+        }
+
+        private void write(final String samplerId, final JsonNode call) throws IOException {
+            final byte[] entry = SampleJson.toBytes(call);
+
+            if (callCount > 0 && (callCount >= maxCallsPerSegment || bytes + entry.length > maxSegmentBytes)) {
+                rollOver();
+            }
+
+            calls.computeIfAbsent(samplerId, k -> new ArrayList<>()).add(entry);
+            bytes += entry.length;
+            callCount++;
+        }
+
+        private List<Segment> finish() throws IOException {
+            if (callCount > 0 || segments.isEmpty()) {
+                rollOver();
+            }
+
+            return segments;
+        }
+
+        /**
+         * Deletes the segments, that have been written so far, if the recording has failed.
+         */
+        private void deleteSegments() throws IOException {
+            for (int number = 1; number <= segments.size() + 1; number++) {
+                Files.deleteIfExists(getSegmentFile(id, number));
+            }
+        }
+
+        private void rollOver() throws IOException {
+            final Path segmentFile = getSegmentFile(id, segments.size() + 1);
+
+            try (OutputStream out = newOutputStream(segmentFile)) {
+                SampleJson.writeRawCalls(out, id, calls);
+            }
+
+            segments.add(new Segment(segmentFile.getFileName().toString(), new LinkedHashSet<>(calls.keySet())));
+
+            calls = new LinkedHashMap<>();
+            bytes = 0;
+            callCount = 0;
+        }
+    }
+
+    /**
+     * A line of the manifest: the file name of a segment, followed by the URL-encoded ids of the samplers, that have
+     * been recorded in the segment.
+     */
+    private static class Segment {
+        private final String fileName;
+        private final Set<String> samplerIds;
+
+        private Segment(final String fileName, final Set<String> samplerIds) {
+            this.fileName = fileName;
+            this.samplerIds = samplerIds;
+        }
+
+        private static Segment parse(final String line) throws UnsupportedEncodingException {
+            final String[] columns = line.split(COLUMN_SEPARATOR, -1);
+            final Set<String> samplerIds = new LinkedHashSet<>();
+
+            if (columns.length > 1 && !columns[1].isEmpty()) {
+                for (final String samplerId : columns[1].split(SAMPLER_ID_SEPARATOR)) {
+                    samplerIds.add(URLDecoder.decode(samplerId, StandardCharsets.UTF_8.name()));
+                }
+            }
+
+            return new Segment(columns[0], samplerIds);
+        }
+
+        private String format() throws UnsupportedEncodingException {
+            final List<String> encodedSamplerIds = new ArrayList<>();
+
+            for (final String samplerId : samplerIds) {
+                encodedSamplerIds.add(URLEncoder.encode(samplerId, StandardCharsets.UTF_8.name()));
+            }
+
+            return fileName + COLUMN_SEPARATOR + String.join(SAMPLER_ID_SEPARATOR, encodedSamplerIds);
+        }
+    }
+}
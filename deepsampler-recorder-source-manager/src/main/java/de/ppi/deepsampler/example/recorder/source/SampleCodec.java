@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression format for sample files. {@link CompressingSourceManager} detects the format of a sample file by its
+ * magic number, so compressed and uncompressed sample files can be mixed.
+ * <p>
+ * {@link GzipSampleCodec} is always available. Additional codecs can be registered using the
+ * {@link java.util.ServiceLoader} mechanism, i.e. by listing the implementing class in
+ * <code>META-INF/services/de.ppi.deepsampler.example.recorder.source.SampleCodec</code>.
+ */
+public interface SampleCodec {
+
+    /**
+     * @return The bytes, that are found at the beginning of every file, that has been written by this codec.
+     */
+    byte[] getMagicNumber();
+
+    /**
+     * @param compressed The compressed stream
+     * @return A stream, that decompresses compressed while it is read.
+     * @throws IOException if compressed cannot be read
+     */
+    InputStream decode(InputStream compressed) throws IOException;
+
+    /**
+     * @param out The stream that receives the compressed data
+     * @return A stream, that compresses all data, that is written to it, and passes it to out. Closing the returned
+     * stream finishes the compression.
+     * @throws IOException if out cannot be written
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Detects the {@link SampleCodec} of a sample file by its magic number.
+ */
+public final class SampleCodecs {
+
+    private static final List<SampleCodec> CODECS = loadCodecs();
+
+    private SampleCodecs() {
+        // This is a utility class, that is not intended to be instantiated.
+    }
+
+    /**
+     * Opens a sample file for reading. If the file has been written by a known {@link SampleCodec}, it is decompressed
+     * while it is read. Otherwise, the file is read as it is.
+     *
+     * @param in The possibly compressed sample file
+     * @return A stream, that reads the uncompressed sample file
+     * @throws IOException if in cannot be read
+     */
+    public static InputStream decode(final InputStream in) throws IOException {
+        final BufferedInputStream bufferedIn = new BufferedInputStream(in);
+
+        for (final SampleCodec codec : CODECS) {
+            final byte[] magicNumber = codec.getMagicNumber();
+            final byte[] head = new byte[magicNumber.length];
+
+            bufferedIn.mark(magicNumber.length);
+            final int headLength = readFully(bufferedIn, head);
+            bufferedIn.reset();
+
+            if (headLength == magicNumber.length && Arrays.equals(head, magicNumber)) {
+                return codec.decode(bufferedIn);
+            }
+        }
+
+        return bufferedIn;
+    }
+
+    private static int readFully(final InputStream in, final byte[] buffer) throws IOException {
+        int length = 0;
+
+        while (length < buffer.length) {
+            final int read = in.read(buffer, length, buffer.length - length);
+
+            if (read < 0) {
+                break;
+            }
+
+            length += read;
+        }
+
+        return length;
+    }
+
+    private static List<SampleCodec> loadCodecs() {
+        final List<SampleCodec> codecs = new ArrayList<>();
+        codecs.add(new GzipSampleCodec());
+        ServiceLoader.load(SampleCodec.class).forEach(codecs::add);
+
+        return codecs;
+    }
+}
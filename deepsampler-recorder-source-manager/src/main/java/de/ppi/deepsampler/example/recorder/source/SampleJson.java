@@ -0,0 +1,444 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Streaming access to the structure of DeepSampler's JSON sample files. A sample file looks like this:
+ * <pre>
+ * {
+ *   "id" : "...",
+ *   "sampleMethodToSampleMap" : {
+ *     "loadPerson" : {
+ *       "callMap" : [ ... ]
+ *     }
+ *   }
+ * }
+ * </pre>
+ * The keys of sampleMethodToSampleMap are the ids of the samplers, as they are defined by
+ * <code>PersistentSample.of(...).hasId("loadPerson")</code>.
+ * <p>
+ * All methods use Jackson's streaming API, so that entries, that are not needed, are skipped by the parser without
+ * being converted to objects.
+ */
+public final class SampleJson {
+
+    public static final String ID = "id";
+    public static final String SAMPLE_METHOD_TO_SAMPLE_MAP = "sampleMethodToSampleMap";
+    public static final String CALL_MAP = "callMap";
+    public static final String PARAMETER = "parameter";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    // The ObjectMapper registers itself as the codec of JSON_FACTORY, so all parsers and generators are able to read and
+    // write trees.
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(JSON_FACTORY);
+
+    private SampleJson() {
+        // This is a utility class, that is not intended to be instantiated.
+    }
+
+    /**
+     * Copies the sample file from in to out. Only those samples are copied, whose sampler id is accepted by isIncluded.
+     * All other samples are skipped by the parser.
+     *
+     * @param in         The original sample file
+     * @param out        The filtered sample file
+     * @param isIncluded Decides which sampler ids are copied
+     * @throws IOException if in cannot be read, or out cannot be written
+     */
+    public static void filterSamplerIds(final InputStream in, final OutputStream out, final Predicate<String> isIncluded) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out).useDefaultPrettyPrinter()) {
+
+            expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                generator.writeFieldName(fieldName);
+
+                if (SAMPLE_METHOD_TO_SAMPLE_MAP.equals(fieldName)) {
+                    copyIncludedSamples(parser, generator, isIncluded);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    private static void copyIncludedSamples(final JsonParser parser, final JsonGenerator generator, final Predicate<String> isIncluded) throws IOException {
+        expectCurrentToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String samplerId = parser.getCurrentName();
+            parser.nextToken();
+
+            if (isIncluded.test(samplerId)) {
+                generator.writeFieldName(samplerId);
+                generator.copyCurrentStructure(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Checks whether a JSON-file is a sample file, i.e. whether it is an object with the field
+     * {@value #SAMPLE_METHOD_TO_SAMPLE_MAP}. Only the top level of the file is read until the field is found, the
+     * values of all other fields are skipped.
+     *
+     * @param in A JSON-file
+     * @return true if in is a sample file, false if in is any other JSON-file
+     * @throws IOException if in cannot be read or is not valid JSON, e.g. because it has been truncated
+     */
+    public static boolean isSampleFile(final InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (SAMPLE_METHOD_TO_SAMPLE_MAP.equals(parser.getCurrentName())) {
+                    return true;
+                }
+
+                parser.nextToken();
+                parser.skipChildren();
+            }
+
+            // Jackson reports most truncated files by itself. This is the last line of defense.
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "The JSON-object is not closed.");
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Splits a sample file into several sample files, each of which contains the samples of only one sampler. Each
+     * sample file is passed to sampleFileConsumer as soon as the samples of its sampler have been read, so the
+     * consumer can process it while the rest of the file is still being read. Only if the id of the sample file follows
+     * the samples, the sample files are passed to the consumer after the whole file has been read.
+     *
+     * @param in                 The sample file
+     * @param sampleFileConsumer Receives the id of each sampler and its sample file in JSON-format
+     * @throws IOException if in cannot be read
+     */
+    public static void splitSamplerIds(final InputStream in, final BiConsumer<String, byte[]> sampleFileConsumer) throws IOException {
+        // Samples, that have been read before the id of the sample file, are kept until the id is known.
+        final Map<String, byte[]> pendingSamples = new LinkedHashMap<>();
+        String id = null;
+        boolean idIsKnown = false;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            expectToken(parser, JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if (ID.equals(fieldName)) {
+                    id = parser.getValueAsString();
+                    idIsKnown = true;
+
+                    for (final Map.Entry<String, byte[]> sample : pendingSamples.entrySet()) {
+                        sampleFileConsumer.accept(sample.getKey(), toSampleFile(id, sample.getKey(), sample.getValue()));
+                    }
+
+                    pendingSamples.clear();
+                } else if (SAMPLE_METHOD_TO_SAMPLE_MAP.equals(fieldName)) {
+                    expectCurrentToken(parser, JsonToken.START_OBJECT);
+
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String samplerId = parser.getCurrentName();
+                        parser.nextToken();
+                        final byte[] sample = copyToBytes(parser);
+
+                        if (idIsKnown) {
+                            sampleFileConsumer.accept(samplerId, toSampleFile(id, samplerId, sample));
+                        } else {
+                            pendingSamples.put(samplerId, sample);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        for (final Map.Entry<String, byte[]> sample : pendingSamples.entrySet()) {
+            sampleFileConsumer.accept(sample.getKey(), toSampleFile(id, sample.getKey(), sample.getValue()));
+        }
+    }
+
+    private static byte[] toSampleFile(final String id, final String samplerId, final byte[] sample) throws IOException {
+        final ByteArrayOutputStream sampleFile = new ByteArrayOutputStream();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(sampleFile).useDefaultPrettyPrinter()) {
+            generator.writeStartObject();
+            generator.writeStringField(ID, id);
+            generator.writeObjectFieldStart(SAMPLE_METHOD_TO_SAMPLE_MAP);
+            generator.writeFieldName(samplerId);
+            generator.writeRawValue(new String(sample, StandardCharsets.UTF_8));
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        return sampleFile.toByteArray();
+    }
+
+    private static byte[] copyToBytes(final JsonParser parser) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(bytes)) {
+            generator.copyCurrentStructure(parser);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads all recorded method calls from a sample file. Only one method call is held in memory at a time.
+     *
+     * @param in           The sample file
+     * @param callConsumer Receives each method call together with the id of its sampler
+     * @return The id of the sample file
+     * @throws IOException if in cannot be read
+     */
+    public static String readCalls(final InputStream in, final CallConsumer callConsumer) throws IOException {
+        String id = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            expectToken(parser, JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if (ID.equals(fieldName)) {
+                    id = parser.getValueAsString();
+                } else if (SAMPLE_METHOD_TO_SAMPLE_MAP.equals(fieldName)) {
+                    readSamples(parser, callConsumer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return id;
+    }
+
+    private static void readSamples(final JsonParser parser, final CallConsumer callConsumer) throws IOException {
+        expectCurrentToken(parser, JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String samplerId = parser.getCurrentName();
+            expectToken(parser, JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if (CALL_MAP.equals(fieldName)) {
+                    expectCurrentToken(parser, JsonToken.START_ARRAY);
+
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        callConsumer.accept(samplerId, parser.readValueAsTree());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a sample file. The method calls are passed as raw, already serialized JSON, so they are copied without
+     * being parsed.
+     *
+     * @param out   The sample file
+     * @param id    The id of the sample file
+     * @param calls The serialized method calls, grouped by the ids of their samplers
+     * @throws IOException if out cannot be written
+     */
+    public static void writeRawCalls(final OutputStream out, final String id, final Map<String, List<byte[]>> calls) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out).useDefaultPrettyPrinter()) {
+            generator.writeStartObject();
+            generator.writeStringField(ID, id);
+            generator.writeObjectFieldStart(SAMPLE_METHOD_TO_SAMPLE_MAP);
+
+            for (final Map.Entry<String, List<byte[]>> sample : calls.entrySet()) {
+                generator.writeObjectFieldStart(sample.getKey());
+                generator.writeArrayFieldStart(CALL_MAP);
+
+                for (final byte[] call : sample.getValue()) {
+                    generator.writeRawValue(new String(call, StandardCharsets.UTF_8));
+                }
+
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @param json A part of a sample file, e.g. a method call or its parameter
+     * @return json as compact JSON. The fields of objects are written in the order in which they have been read, so
+     * equal values may be serialized to different bytes. Values are compared by {@link JsonNode#equals(Object)}.
+     * @throws IOException if json cannot be serialized
+     */
+    public static byte[] toBytes(final JsonNode json) throws IOException {
+        return OBJECT_MAPPER.writeValueAsBytes(json);
+    }
+
+    /**
+     * @param bytes A part of a sample file, as it has been serialized by {@link #toBytes(JsonNode)}
+     * @return The SHA-256 hash of bytes as a hex string
+     */
+    public static String hash(final byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * @return A new {@link MessageDigest}, that calculates the same hash as {@link #hash(byte[])}
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PersistenceException("SHA-256 is not supported by this JVM.", e);
+        }
+    }
+
+    /**
+     * @param digest A hash, that has been calculated by {@link #newDigest()}
+     * @return digest as a hex string, as it is returned by {@link #hash(byte[])}
+     */
+    static String toHex(final byte[] digest) {
+        final StringBuilder hash = new StringBuilder();
+
+        for (final byte b : digest) {
+            hash.append(String.format("%02x", b));
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * Copies the value of sampleMethodToSampleMap from parser to generator. Each method call is read as a tree and
+     * passed through callTransformer before it is written.
+     *
+     * @param parser          A parser, that points to the start of sampleMethodToSampleMap
+     * @param generator       The generator, that receives the transformed samples
+     * @param callTransformer Transforms each method call
+     * @throws IOException if the parser cannot read, or the generator cannot write
+     */
+    static void copyCalls(final JsonParser parser, final JsonGenerator generator, final CallTransformer callTransformer) throws IOException {
+        expectCurrentToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String samplerId = parser.getCurrentName();
+            generator.writeFieldName(samplerId);
+            expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                generator.writeFieldName(fieldName);
+                parser.nextToken();
+
+                if (CALL_MAP.equals(fieldName)) {
+                    expectCurrentToken(parser, JsonToken.START_ARRAY);
+                    generator.writeStartArray();
+
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        generator.writeTree(callTransformer.transform(samplerId, parser.readValueAsTree()));
+                    }
+
+                    generator.writeEndArray();
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+
+            generator.writeEndObject();
+        }
+
+        generator.writeEndObject();
+    }
+
+    static JsonParser createParser(final InputStream in) throws IOException {
+        return JSON_FACTORY.createParser(in);
+    }
+
+    static JsonGenerator createGenerator(final OutputStream out) throws IOException {
+        return JSON_FACTORY.createGenerator(out).useDefaultPrettyPrinter();
+    }
+
+    static void expectToken(final JsonParser parser, final JsonToken expectedToken) throws IOException {
+        parser.nextToken();
+        expectCurrentToken(parser, expectedToken);
+    }
+
+    static void expectCurrentToken(final JsonParser parser, final JsonToken expectedToken) {
+        if (parser.currentToken() != expectedToken) {
+            throw new PersistenceException("The sample file is malformed. Expected %s but found %s at %s",
+                    expectedToken, parser.currentToken(), parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Receives the method calls that are read by {@link SampleJson#readCalls(InputStream, CallConsumer)}.
+     */
+    @FunctionalInterface
+    public interface CallConsumer {
+        void accept(String samplerId, JsonNode call) throws IOException;
+    }
+
+    /**
+     * Transforms the method calls that are copied by {@link SampleJson#copyCalls(JsonParser, JsonGenerator, CallTransformer)}.
+     */
+    @FunctionalInterface
+    interface CallTransformer {
+        ObjectNode transform(String samplerId, ObjectNode call) throws IOException;
+    }
+}
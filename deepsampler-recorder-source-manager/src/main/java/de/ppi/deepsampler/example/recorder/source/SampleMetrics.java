@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.util.ServiceLoader;
+
+/**
+ * Receives measurements of loading and saving samples, e.g. from a {@link MeasuringSourceManager}, of matchers, that
+ * have been wrapped by {@link MeasuringMatchers}, and of {@link MeasuringBeanConverterExtension}s. The measurements
+ * are reported by the threads, that do the measured work, so implementations must be thread-safe and cheap enough to
+ * be left switched on.
+ * <p>
+ * Calls of sampled methods, that are intercepted by DeepSampler, are not measured.
+ * <p>
+ * The default implementation publishes the measurements via JMX (see {@link JmxSampleMetrics}). Another
+ * implementation can be plugged in by registering it as a {@link ServiceLoader} service in
+ * <code>META-INF/services/de.ppi.deepsampler.example.recorder.source.SampleMetrics</code>.
+ */
+public interface SampleMetrics {
+
+    /**
+     * @param source       The name of the sample source, e.g. the path of the sample file
+     * @param bytes        The number of bytes, that have been read
+     * @param entries      The number of method calls, that have been loaded
+     * @param latencyNanos The time, that has been needed to load the samples
+     */
+    void recordLoad(String source, long bytes, long entries, long latencyNanos);
+
+    /**
+     * @param source       The name of the sample source, e.g. the path of the sample file
+     * @param bytes        The number of bytes, that have been written
+     * @param entries      The number of method calls, that have been saved
+     * @param latencyNanos The time, that has been needed to save the samples
+     */
+    void recordSave(String source, long bytes, long entries, long latencyNanos);
+
+    /**
+     * The default implementation ignores the measurement.
+     *
+     * @param matcher      The name of the matcher, e.g. "personIdMatches"
+     * @param matched      true if the matcher has accepted the parameter
+     * @param latencyNanos The time, that has been spent in the matcher
+     */
+    default void recordMatch(final String matcher, final boolean matched, final long latencyNanos) {
+        // Implementations, that don't measure matchers, don't need to override this method.
+    }
+
+    /**
+     * The default implementation ignores the measurement.
+     *
+     * @param extension    The name of the BeanConverterExtension
+     * @param latencyNanos The time, that has been needed to convert a bean to its persistent form
+     */
+    default void recordConversion(final String extension, final long latencyNanos) {
+        // Implementations, that don't measure BeanConverterExtensions, don't need to override this method.
+    }
+
+    /**
+     * The default implementation ignores the measurement.
+     *
+     * @param extension    The name of the BeanConverterExtension
+     * @param latencyNanos The time, that has been needed to revert a persistent bean to its original form
+     */
+    default void recordReversion(final String extension, final long latencyNanos) {
+        // Implementations, that don't measure BeanConverterExtensions, don't need to override this method.
+    }
+
+    /**
+     * @return The first {@link SampleMetrics}, that has been registered as a {@link ServiceLoader} service, or a
+     * {@link JmxSampleMetrics} if no service has been registered.
+     */
+    static SampleMetrics getDefault() {
+        return DefaultSampleMetrics.INSTANCE;
+    }
+}
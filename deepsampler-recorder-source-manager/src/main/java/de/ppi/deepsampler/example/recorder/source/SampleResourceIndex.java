@@ -0,0 +1,361 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An index of all sample files on the classpath, that have been indexed by the {@link SampleResourceIndexer} during
+ * the build.
+ * <p>
+ * Resolving a resource by the class loader searches all entries of the classpath one after another, which gets slow
+ * on large classpaths. The index is read once, when it is used the first time. Afterwards, sample files are resolved
+ * by a simple lookup. Since all sample files are known in advance, missing sample files can be reported before any
+ * test runs, using {@link #checkResourcesExist(Collection)}.
+ * <p>
+ * Sample files, that are not part of an index, e.g. because the tests are started by an IDE, that doesn't run the
+ * exec-maven-plugin, are still resolved by the class loader. An IDE may also copy a changed sample file over an
+ * indexed one. By default, such a sample file is read as it is. Its size can be compared with the index by
+ * {@link #isUpToDate(String)}, which costs a single file system call and no read. The {@link SnapshotSourceManager}
+ * uses this to fall back to the JSON-file, if its snapshot is outdated. Comparing the SHA-256 hash requires reading
+ * the whole file, so it is only done by an index, that has been created by {@link #withHashVerification()}, e.g. on
+ * a CI server, where sample files must never be changed after the build.
+ */
+public final class SampleResourceIndex {
+
+    public static final String INDEX_RESOURCE = "META-INF/deepsampler/sample-index.txt";
+
+    static final String SEPARATOR = "\t";
+
+    private static final String COMMENT = "#";
+
+    private static volatile SampleResourceIndex instance;
+
+    private final Map<String, Entry> entries;
+    private final ClassLoader classLoader;
+    private final boolean verifyHashes;
+
+    private SampleResourceIndex(final Map<String, Entry> entries, final ClassLoader classLoader, final boolean verifyHashes) {
+        this.entries = entries;
+        this.classLoader = classLoader;
+        this.verifyHashes = verifyHashes;
+    }
+
+    /**
+     * @return The index of all sample files on the classpath of the context class loader. The index is read only once.
+     */
+    public static SampleResourceIndex getInstance() {
+        if (instance == null) {
+            synchronized (SampleResourceIndex.class) {
+                if (instance == null) {
+                    instance = load(Thread.currentThread().getContextClassLoader());
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Reads and combines all indexes, that can be found by classLoader.
+     *
+     * @param classLoader The class loader, that is used to find the indexes and the sample files, that are not indexed
+     * @return The combined index, that compares only the sizes of the sample files with the index
+     */
+    static SampleResourceIndex load(final ClassLoader classLoader) {
+        final Map<String, Entry> entries = new HashMap<>();
+
+        try {
+            final Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+
+            while (indexes.hasMoreElements()) {
+                readIndex(indexes.nextElement(), entries);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The sample index " + INDEX_RESOURCE + " could not be read.", e);
+        }
+
+        return new SampleResourceIndex(Collections.unmodifiableMap(entries), classLoader, false);
+    }
+
+    /**
+     * @return An index with the same entries, that compares the size and the SHA-256 hash of an indexed sample file
+     * with the index, while it is read by {@link #openStream(String)}. Changed sample files are reported instead of
+     * being read.
+     */
+    public SampleResourceIndex withHashVerification() {
+        return new SampleResourceIndex(entries, classLoader, true);
+    }
+
+    /**
+     * @param resource The name of a sample file as it is described by {@link ClassLoader#getResource(String)}
+     * @return The URL of the sample file, or the result of the class loader, if the sample file is not indexed.
+     */
+    public URL getResource(final String resource) {
+        final Entry entry = entries.get(resource);
+
+        if (entry != null) {
+            return entry.url;
+        }
+
+        return classLoader.getResource(resource);
+    }
+
+    /**
+     * Opens a sample file. If the sample file is indexed and the hash verification is switched on, its size and its
+     * SHA-256 hash are compared with the index while it is read. The comparison is done when the stream is closed,
+     * bytes that have not been read until then are read by {@link InputStream#close()}. Otherwise, the sample file is
+     * read as it is, even if it has been changed after it has been indexed.
+     *
+     * @param resource The name of a sample file as it is described by {@link ClassLoader#getResource(String)}
+     * @return The content of the sample file
+     * @throws IOException          if the sample file cannot be read
+     * @throws PersistenceException if the sample file doesn't exist, or on close, if the hash verification is switched
+     *                              on and the sample file has been changed after it has been indexed
+     */
+    public InputStream openStream(final String resource) throws IOException {
+        final Entry entry = entries.get(resource);
+
+        if (entry != null && verifyHashes) {
+            return new VerifyingInputStream(resource, entry);
+        }
+
+        final URL url = getResource(resource);
+
+        if (url == null) {
+            throw new PersistenceException("The classpath resource %s does not exist.", resource);
+        }
+
+        return url.openStream();
+    }
+
+    /**
+     * Compares the current size of a sample file with the index, without reading it. Sample files in jars are not
+     * changed after the build, so they are always up to date.
+     *
+     * @param resource The name of a sample file as it is described by {@link ClassLoader#getResource(String)}
+     * @return false if the sample file is indexed, but has been deleted or has another size than the indexed one.
+     * true otherwise, also if the sample file is not indexed at all.
+     */
+    public boolean isUpToDate(final String resource) {
+        final Entry entry = entries.get(resource);
+
+        if (entry == null || !"file".equals(entry.url.getProtocol())) {
+            return true;
+        }
+
+        try {
+            final Path sampleFile = Paths.get(entry.url.toURI());
+
+            return Files.isRegularFile(sampleFile) && Files.size(sampleFile) == entry.size;
+        } catch (URISyntaxException | IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param resource The name of a sample file as it is described by {@link ClassLoader#getResource(String)}
+     * @return true if the sample file is part of an index.
+     */
+    public boolean contains(final String resource) {
+        return entries.containsKey(resource);
+    }
+
+    /**
+     * @param resource The name of an indexed sample file
+     * @return The size of the sample file in bytes, when it was indexed
+     */
+    public long getSize(final String resource) {
+        return getEntry(resource).size;
+    }
+
+    /**
+     * @param resource The name of an indexed sample file
+     * @return The SHA-256 hash of the sample file, when it was indexed
+     */
+    public String getHash(final String resource) {
+        return getEntry(resource).hash;
+    }
+
+    /**
+     * Checks, that all resources exist. Like {@link #getResource(String)}, resources, that are not part of the index,
+     * are resolved by the class loader. This can be used to report all missing sample files at once, e.g. in an
+     * <code>@BeforeAll</code> method of a test suite.
+     *
+     * @param resources The names of the sample files, that are used by the tests
+     * @throws PersistenceException if at least one sample file is missing
+     */
+    public void checkResourcesExist(final Collection<String> resources) {
+        final List<String> missingResources = resources.stream()
+                .filter(resource -> getResource(resource) == null)
+                .sorted()
+                .collect(Collectors.toList());
+
+        if (!missingResources.isEmpty()) {
+            throw new PersistenceException("The following sample files are missing: %s", missingResources);
+        }
+    }
+
+    private Entry getEntry(final String resource) {
+        final Entry entry = entries.get(resource);
+
+        if (entry == null) {
+            throw new PersistenceException("The sample file %s is not indexed.", resource);
+        }
+
+        return entry;
+    }
+
+    private static void readIndex(final URL index, final Map<String, Entry> entries) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith(COMMENT)) {
+                    continue;
+                }
+
+                final String[] columns = line.split(SEPARATOR);
+
+                if (columns.length != 3) {
+                    throw new PersistenceException("The sample index %s contains an invalid line: %s", index, line);
+                }
+
+                // The index is located in META-INF/deepsampler, so the classpath root is two levels above.
+                entries.putIfAbsent(columns[0], new Entry(toResourceUrl(index, columns[0]), Long.parseLong(columns[1]), columns[2]));
+            }
+        }
+    }
+
+    private static URL toResourceUrl(final URL index, final String resource) throws MalformedURLException {
+        return new URL(index, "../../" + resource);
+    }
+
+    /**
+     * Calculates the size and the hash of an indexed sample file while it is read, and compares them with the index
+     * when it is closed.
+     */
+    private class VerifyingInputStream extends FilterInputStream {
+        private final String resource;
+        private final Entry entry;
+        private final MessageDigest digest = SampleJson.newDigest();
+        private long size;
+        private boolean closed;
+
+        private VerifyingInputStream(final String resource, final Entry entry) throws IOException {
+            super(entry.url.openStream());
+            this.resource = resource;
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b >= 0) {
+                digest.update((byte) b);
+                size++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int readLength = super.read(buffer, offset, length);
+
+            if (readLength > 0) {
+                digest.update(buffer, offset, readLength);
+                size += readLength;
+            }
+
+            return readLength;
+        }
+
+        /**
+         * Skipped bytes are read anyway, because they are part of the hash.
+         */
+        @Override
+        public long skip(final long length) throws IOException {
+            final byte[] buffer = new byte[(int) Math.min(length, 8192)];
+            long skipped = 0;
+            int readLength;
+
+            while (skipped < length && (readLength = read(buffer, 0, (int) Math.min(buffer.length, length - skipped))) > 0) {
+                skipped += readLength;
+            }
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+                final byte[] buffer = new byte[8192];
+
+                while (read(buffer, 0, buffer.length) >= 0) {
+                    // The rest of the sample file is read only to complete the hash.
+                }
+            } finally {
+                super.close();
+            }
+
+            if (size != entry.size) {
+                throw new PersistenceException("The sample file %s has %d bytes, but %d bytes have been indexed. It has been "
+                        + "changed after the index has been written.", resource, size, entry.size);
+            }
+
+            if (!entry.hash.equals(SampleJson.toHex(digest.digest()))) {
+                throw new PersistenceException("The hash of the sample file %s doesn't match the index. It has been "
+                        + "changed after the index has been written.", resource);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final URL url;
+        private final long size;
+        private final String hash;
+
+        private Entry(final URL url, final long size, final String hash) {
+            this.url = url;
+            this.size = size;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the index, that is read by {@link SampleResourceIndex}. The index lists all sample files in a classpath
+ * directory together with their sizes and hashes.
+ * <p>
+ * The indexer is run by the exec-maven-plugin in the phase process-test-resources, after the
+ * {@link SampleSnapshotCompiler}, so the snapshots are indexed as well. Each module writes its own index, so the
+ * indexes of all modules on the classpath are combined by {@link SampleResourceIndex}.
+ */
+public final class SampleResourceIndexer {
+
+    private static final String[] SAMPLE_FILE_SUFFIXES = {".json", ".json.gz", ".json" + SampleSnapshotCompiler.SNAPSHOT_SUFFIX};
+
+    private SampleResourceIndexer() {
+        // This is a utility class, it is not meant to be instantiated.
+    }
+
+    /**
+     * @param args The classpath directories, that are indexed
+     * @throws IOException if a directory cannot be read, or if the index cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        for (final String directory : args) {
+            writeIndex(Paths.get(directory));
+        }
+    }
+
+    /**
+     * Writes the index of all sample files in classPathRoot to {@link SampleResourceIndex#INDEX_RESOURCE}.
+     *
+     * @param classPathRoot A directory, that is the root of a classpath, e.g. target/test-classes
+     * @return The number of indexed sample files
+     * @throws IOException if classPathRoot cannot be read, or if the index cannot be written
+     */
+    public static int writeIndex(final Path classPathRoot) throws IOException {
+        if (!Files.isDirectory(classPathRoot)) {
+            return 0;
+        }
+
+        final List<Path> sampleFiles;
+
+        try (Stream<Path> files = Files.walk(classPathRoot)) {
+            sampleFiles = files.filter(SampleResourceIndexer::isSampleFile)
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        final Path indexFile = classPathRoot.resolve(SampleResourceIndex.INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            writer.write("# resource\tsize\tsha-256");
+            writer.newLine();
+
+            for (final Path sampleFile : sampleFiles) {
+                final byte[] content = Files.readAllBytes(sampleFile);
+                final String resource = classPathRoot.relativize(sampleFile).toString().replace('\\', '/');
+
+                writer.write(resource + SampleResourceIndex.SEPARATOR + content.length + SampleResourceIndex.SEPARATOR + SampleJson.hash(content));
+                writer.newLine();
+            }
+        }
+
+        return sampleFiles.size();
+    }
+
+    private static boolean isSampleFile(final Path file) {
+        final String fileName = file.getFileName().toString();
+
+        for (final String suffix : SAMPLE_FILE_SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles all JSON sample files in a directory into snapshots, that can be loaded by the {@link SnapshotSourceManager}.
+ * <p>
+ * A snapshot is an {@link IndexedSampleContainer}, that is written next to the sample file. Its name is the name of
+ * the sample file with the suffix {@value #SNAPSHOT_SUFFIX}.
+ * <p>
+ * The compiler is run by the exec-maven-plugin in the phase process-test-resources. It compiles the sample files in
+ * target/test-classes, so the snapshots are never committed. The JSON-files in src/test/resources stay the
+ * source of truth. Test resources may contain other JSON-files as well, so JSON-files, that don't have the top-level
+ * field {@value SampleJson#SAMPLE_METHOD_TO_SAMPLE_MAP}, or that don't contain any samples, are skipped. No snapshot
+ * is written for them. A sample file, that cannot be parsed, fails the compilation and with it the build.
+ */
+public final class SampleSnapshotCompiler {
+
+    public static final String SNAPSHOT_SUFFIX = ".dsc";
+
+    private static final String JSON_SUFFIX = ".json";
+
+    private SampleSnapshotCompiler() {
+        // This is a utility class, it is not meant to be instantiated.
+    }
+
+    /**
+     * @param args The directories, that are searched recursively for sample files
+     * @throws IOException if a directory cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        for (final String directory : args) {
+            compileAll(Paths.get(directory));
+        }
+    }
+
+    /**
+     * Compiles all sample files in directory and its subdirectories. Snapshots, that are newer than their sample file,
+     * are not compiled again. JSON-files, that are not sample files, are skipped.
+     *
+     * @param directory The directory, that is searched for sample files
+     * @return The number of compiled snapshots
+     * @throws IOException          if directory cannot be read
+     * @throws PersistenceException if a JSON-file is not valid JSON, or if a sample file is malformed
+     */
+    public static int compileAll(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        final List<Path> sampleFiles;
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            sampleFiles = files.filter(file -> file.getFileName().toString().endsWith(JSON_SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+
+        int compiledSnapshots = 0;
+
+        for (final Path sampleFile : sampleFiles) {
+            if (!isUpToDate(sampleFile) && isSampleFile(sampleFile) && compile(sampleFile)) {
+                compiledSnapshots++;
+            }
+        }
+
+        return compiledSnapshots;
+    }
+
+    /**
+     * Compiles sampleFile into a snapshot.
+     *
+     * @param sampleFile A sample file in JSON-format
+     * @return true if a snapshot has been written, false if sampleFile doesn't contain any samples.
+     * @throws PersistenceException if sampleFile is not a valid sample file. No snapshot is left behind in this case.
+     */
+    public static boolean compile(final Path sampleFile) {
+        final Path snapshotFile = getSnapshotFile(sampleFile);
+
+        try {
+            Files.deleteIfExists(snapshotFile);
+
+            final IndexedSampleContainer snapshot = new IndexedSampleContainer(snapshotFile);
+
+            try (InputStream in = Files.newInputStream(sampleFile)) {
+                snapshot.append(in);
+            } catch (IOException | PersistenceException e) {
+                Files.deleteIfExists(snapshotFile);
+                throw e;
+            }
+
+            if (snapshot.getSamplerIds().isEmpty()) {
+                Files.delete(snapshotFile);
+                return false;
+            }
+
+            return true;
+        } catch (IOException e) {
+            throw new PersistenceException("The snapshot of the sample file " + sampleFile + " could not be compiled.", e);
+        }
+    }
+
+    /**
+     * @param sampleFile A sample file in JSON-format
+     * @return The path of the snapshot of sampleFile. The snapshot doesn't need to exist.
+     */
+    public static Path getSnapshotFile(final Path sampleFile) {
+        return sampleFile.resolveSibling(sampleFile.getFileName() + SNAPSHOT_SUFFIX);
+    }
+
+    private static boolean isSampleFile(final Path jsonFile) {
+        try (InputStream in = Files.newInputStream(jsonFile)) {
+            return SampleJson.isSampleFile(in);
+        } catch (IOException e) {
+            throw new PersistenceException("The JSON-file " + jsonFile + " could not be read.", e);
+        }
+    }
+
+    private static boolean isUpToDate(final Path sampleFile) throws IOException {
+        final Path snapshotFile = getSnapshotFile(sampleFile);
+
+        return Files.exists(snapshotFile)
+                && Files.getLastModifiedTime(snapshotFile).compareTo(Files.getLastModifiedTime(sampleFile)) >= 0;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The accumulated measurements of loading and saving one sample source, that are published by {@link JmxSampleMetrics}.
+ */
+public class SampleSourceStatistics implements SampleSourceStatisticsMXBean {
+
+    private final LongAdder loadedBytes = new LongAdder();
+    private final LongAdder loadedEntries = new LongAdder();
+    private final LatencyHistogram loadLatencies = new LatencyHistogram();
+
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder savedEntries = new LongAdder();
+    private final LatencyHistogram saveLatencies = new LatencyHistogram();
+
+    void recordLoad(final long bytes, final long entries, final long latencyNanos) {
+        loadedBytes.add(bytes);
+        loadedEntries.add(entries);
+        loadLatencies.record(latencyNanos);
+    }
+
+    void recordSave(final long bytes, final long entries, final long latencyNanos) {
+        savedBytes.add(bytes);
+        savedEntries.add(entries);
+        saveLatencies.record(latencyNanos);
+    }
+
+    @Override
+    public long getLoads() {
+        return loadLatencies.getCount();
+    }
+
+    @Override
+    public long getLoadedBytes() {
+        return loadedBytes.sum();
+    }
+
+    @Override
+    public long getLoadedEntries() {
+        return loadedEntries.sum();
+    }
+
+    @Override
+    public double getMeanLoadLatencyMillis() {
+        return loadLatencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxLoadLatencyMillis() {
+        return loadLatencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getLoadLatencyHistogram() {
+        return loadLatencies.getBuckets();
+    }
+
+    @Override
+    public long getSaves() {
+        return saveLatencies.getCount();
+    }
+
+    @Override
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    @Override
+    public long getSavedEntries() {
+        return savedEntries.sum();
+    }
+
+    @Override
+    public double getMeanSaveLatencyMillis() {
+        return saveLatencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxSaveLatencyMillis() {
+        return saveLatencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getSaveLatencyHistogram() {
+        return saveLatencies.getBuckets();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+/**
+ * The JMX-view of the {@link SampleSourceStatistics} of one sample source.
+ */
+public interface SampleSourceStatisticsMXBean {
+
+    long getLoads();
+
+    long getLoadedBytes();
+
+    long getLoadedEntries();
+
+    double getMeanLoadLatencyMillis();
+
+    double getMaxLoadLatencyMillis();
+
+    /**
+     * @return The load latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getLoadLatencyHistogram();
+
+    long getSaves();
+
+    long getSavedBytes();
+
+    long getSavedEntries();
+
+    double getMeanSaveLatencyMillis();
+
+    double getMaxSaveLatencyMillis();
+
+    /**
+     * @return The save latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getSaveLatencyHistogram();
+}
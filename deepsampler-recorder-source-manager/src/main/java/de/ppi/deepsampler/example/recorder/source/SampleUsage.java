@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the samples, that have been loaded from each sample file by a {@link UsageTrackingSourceManager},
+ * and removes all other samples from the files.
+ * <p>
+ * Sample files tend to grow, because samples are recorded, but rarely removed. After a test run, the unused samples can
+ * be removed by {@link #compactAll()}, e.g. in an <code>@AfterAll</code> method of a test suite. Since a sample is
+ * identified by its sampler id, a sample counts as used, if any test has declared its sampler while the file was loaded.
+ * <p>
+ * Notice: a file should only be compacted after all tests, that use it, have run. Otherwise, samples of tests, that did
+ * not run, are removed. A file, from which no sample has been loaded, is never compacted, because this usually means,
+ * that the tests, that use it, have not run at all.
+ */
+public final class SampleUsage {
+
+    private static final Map<Path, Set<String>> USED_SAMPLER_IDS = new ConcurrentHashMap<>();
+
+    private SampleUsage() {
+        // This is a utility class, it is not meant to be instantiated.
+    }
+
+    /**
+     * Remembers that the samples with the ids usedSamplerIds have been loaded from sampleFile.
+     */
+    static void recordUsage(final Path sampleFile, final Set<String> usedSamplerIds) {
+        USED_SAMPLER_IDS.computeIfAbsent(normalize(sampleFile), file -> ConcurrentHashMap.newKeySet()).addAll(usedSamplerIds);
+    }
+
+    /**
+     * @param sampleFile A sample file, that has been loaded by a {@link UsageTrackingSourceManager}
+     * @return The ids of all samples, that have been loaded from sampleFile so far.
+     */
+    public static Set<String> getUsedSamplerIds(final Path sampleFile) {
+        return Collections.unmodifiableSet(USED_SAMPLER_IDS.getOrDefault(normalize(sampleFile), Collections.emptySet()));
+    }
+
+    /**
+     * Compacts all sample files, that have been loaded by a {@link UsageTrackingSourceManager}, so that they only
+     * contain the samples, that have actually been used. Files, from which no sample has been loaded, are skipped.
+     */
+    public static void compactAll() {
+        for (final Map.Entry<Path, Set<String>> usage : USED_SAMPLER_IDS.entrySet()) {
+            compact(usage.getKey(), usage.getValue());
+        }
+    }
+
+    /**
+     * Compacts sampleFile, so that it only contains the samples, that have been loaded so far. If no sample has been
+     * loaded from sampleFile, the file is not touched.
+     *
+     * @param sampleFile A sample file, that has been loaded by a {@link UsageTrackingSourceManager}
+     * @return true if at least one sample has been removed.
+     */
+    public static boolean compact(final Path sampleFile) {
+        return compact(sampleFile, getUsedSamplerIds(sampleFile));
+    }
+
+    /**
+     * Compacts sampleFile, so that it only contains the samples with the ids samplerIds. This can be used to strip a
+     * shared sample file down to the samples, that are needed by one SamplerFixture. The file is only rewritten, if
+     * at least one sample is removed. If samplerIds is empty, the file is not touched, so a file is never emptied by
+     * accident.
+     *
+     * @param sampleFile The sample file
+     * @param samplerIds The ids of the samples, that are kept
+     * @return true if at least one sample has been removed.
+     */
+    public static boolean compact(final Path sampleFile, final Set<String> samplerIds) {
+        if (samplerIds.isEmpty()) {
+            return false;
+        }
+
+        final Set<String> removedSamplerIds = new HashSet<>();
+
+        try {
+            final Path compactedFile = Files.createTempFile(sampleFile.toAbsolutePath().getParent(), "compacted-", ".json");
+
+            try {
+                try (InputStream in = Files.newInputStream(sampleFile);
+                     OutputStream out = Files.newOutputStream(compactedFile)) {
+                    SampleJson.filterSamplerIds(in, out, samplerId -> {
+                        if (samplerIds.contains(samplerId)) {
+                            return true;
+                        }
+
+                        removedSamplerIds.add(samplerId);
+                        return false;
+                    });
+                }
+
+                if (removedSamplerIds.isEmpty()) {
+                    return false;
+                }
+
+                JsonStreamSourceManager.moveSampleFile(compactedFile, sampleFile);
+                return true;
+            } finally {
+                Files.deleteIfExists(compactedFile);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The sample file " + sampleFile + " could not be compacted.", e);
+        }
+    }
+
+    private static Path normalize(final Path sampleFile) {
+        return sampleFile.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.core.model.SampleRepository;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that loads only a part of a sample file. This is useful
+ * if one sample file is shared by many SamplerFixtures, each of which uses only some of the samples in the file.
+ * <p>
+ * By default, only those samples are loaded, whose ids have been declared by the currently active samplers, e.g. by
+ * <code>PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson")</code>. All other
+ * samples are skipped while the file is parsed, so they are never converted to
+ * {@link de.ppi.deepsampler.persistence.model.PersistentBean}s.
+ * <p>
+ * Saving is not affected, all recorded samples are written to the file.
+ */
+public class SamplerIdFilteringSourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+    private final Set<String> samplerIds;
+
+    /**
+     * Creates a {@link SamplerIdFilteringSourceManager} that loads only the samples, that are declared by the
+     * currently active samplers.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     */
+    public SamplerIdFilteringSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        this(jsonSourceManagerBuilder, sampleFile, new HashSet<>());
+    }
+
+    /**
+     * Creates a {@link SamplerIdFilteringSourceManager} that loads only the samples with the given ids.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     * @param samplerIds               The ids of the samples that will be loaded
+     */
+    public SamplerIdFilteringSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile,
+                                           final String... samplerIds) {
+        this(jsonSourceManagerBuilder, sampleFile, new HashSet<>(Arrays.asList(samplerIds)));
+    }
+
+    private SamplerIdFilteringSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile,
+                                            final Set<String> samplerIds) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+        this.samplerIds = samplerIds;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, in -> writeSampleFile(sampleFile, in));
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final Set<String> includedSamplerIds = samplerIds.isEmpty() ? getDeclaredSamplerIds() : samplerIds;
+        final Set<String> loadedSamplerIds = new HashSet<>();
+
+        final PersistentModel persistentModel = loadJson(out -> {
+            try (InputStream in = Files.newInputStream(sampleFile)) {
+                SampleJson.filterSamplerIds(in, out, samplerId -> {
+                    if (!includedSamplerIds.contains(samplerId)) {
+                        return false;
+                    }
+
+                    loadedSamplerIds.add(samplerId);
+                    return true;
+                });
+            }
+        }, persistentSamplerContext);
+
+        samplesLoaded(loadedSamplerIds);
+
+        return persistentModel;
+    }
+
+    /**
+     * Is called after each load. Subclasses can override this method, e.g. to keep track of the samples, that are
+     * actually used.
+     *
+     * @param loadedSamplerIds The ids of the samples, that have been found in the sample file and have been loaded.
+     */
+    protected void samplesLoaded(final Set<String> loadedSamplerIds) {
+        // By default, the loaded samples are not tracked.
+    }
+
+    protected Path getSampleFile() {
+        return sampleFile;
+    }
+
+    /**
+     * @return The ids of all samplers, that have been defined by the currently active SamplerFixture or by the
+     * test itself.
+     */
+    static Set<String> getDeclaredSamplerIds() {
+        return SampleRepository.getInstance().getSamples().stream()
+                .map(SampleDefinition::getSampleId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that loads one large sample file concurrently. The file
+ * is split by sampler ids and the parts are deserialized concurrently on a {@link ForkJoinPool}, in the same way as the
+ * {@link ParallelSourceManager} does it.
+ * <p>
+ * The file is read by one thread. Each part is passed to the pool as soon as it has been read, so the parts are
+ * deserialized while the rest of the file is still being read. Each part is kept on the heap, until it has been
+ * deserialized.
+ */
+public class SamplerIdSplittingSourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Creates a {@link SamplerIdSplittingSourceManager} that uses the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param sampleFile               The sample file
+     */
+    public SamplerIdSplittingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        this(jsonSourceManagerBuilder, sampleFile, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param sampleFile               The sample file
+     * @param forkJoinPool             The pool that deserializes the parts of the sample file
+     */
+    public SamplerIdSplittingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile,
+                                           final ForkJoinPool forkJoinPool) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJson(sampleMethodToSampleMap, persistentSamplerContext, in -> writeSampleFile(sampleFile, in));
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final List<CompletableFuture<PersistentModel>> loadingModels = new ArrayList<>();
+
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(sampleFile))) {
+            SampleJson.splitSamplerIds(in, (samplerId, json) -> loadingModels.add(ParallelSourceManager.loadAsync(
+                    new JsonBytesSourceManager(getJsonSourceManagerBuilder(), json), persistentSamplerContext, forkJoinPool)));
+            countLoadedBytes(in.getCount());
+        } catch (IOException e) {
+            throw new PersistenceException("The sample file " + sampleFile + " could not be read.", e);
+        }
+
+        return ParallelSourceManager.join(loadingModels);
+    }
+
+    /**
+     * Loads samples from a sample file, that is held in memory.
+     */
+    private static class JsonBytesSourceManager extends JsonStreamSourceManager {
+
+        private final byte[] json;
+
+        private JsonBytesSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final byte[] json) {
+            super(jsonSourceManagerBuilder);
+            this.json = json;
+        }
+
+        @Override
+        public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+            throw new PersistenceException("Samples cannot be saved to a part of a sample file.");
+        }
+
+        @Override
+        public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+            return loadJson(out -> out.write(json), persistentSamplerContext);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link SourceManager} that stores the samples of each sampler in a separate file, a so-called shard. All shards
+ * of a recording are stored in one directory. Each recording gets a random id, and the shards are named after the
+ * recording and the sampler, e.g. the shard of the sampler with the id "loadPerson" is stored in
+ * <code>&lt;id&gt;-loadPerson.json</code>.
+ * <p>
+ * Each shard is serialized and written by its own {@link JsonSourceManager} on the {@link ForkJoinPool}, so the
+ * samplers of a recording are serialized concurrently and directly into their shards. The shards are loaded
+ * concurrently by a {@link ParallelSourceManager}. Nevertheless, DeepSampler receives all samples of the directory at
+ * once, just as if they had been loaded from one sample file.
+ * <p>
+ * The shards of the latest recording are listed in the manifest <code>shards.manifest</code>, so other files in the
+ * directory are ignored. The manifest is replaced by an atomic move, but only after all shards of the new recording
+ * have been written. Afterwards, the shards of the previous recording are deleted. Since the shards of each recording
+ * have their own names, a concurrent load reads either the old or the new recording, and a failing recording never
+ * damages the previous one. The shards, that a failing recording has written so far, are deleted.
+ */
+public class ShardedSourceManager extends JsonStreamSourceManager {
+
+    public static final String MANIFEST_FILE_NAME = "shards.manifest";
+
+    private static final String SHARD_SUFFIX = ".json";
+    private static final String COLUMN_SEPARATOR = "\t";
+
+    private final Path shardDirectory;
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Creates a {@link ShardedSourceManager} that uses the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param shardDirectory           The directory, that contains the shards. It is created by the first recording.
+     */
+    public ShardedSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path shardDirectory) {
+        this(jsonSourceManagerBuilder, shardDirectory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}s
+     * @param shardDirectory           The directory, that contains the shards. It is created by the first recording.
+     * @param forkJoinPool             The pool that writes and loads the shards
+     */
+    public ShardedSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path shardDirectory,
+                                final ForkJoinPool forkJoinPool) {
+        super(jsonSourceManagerBuilder);
+        this.shardDirectory = shardDirectory;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * The samples are grouped by their sampler ids on the calling thread. Each group is passed to its own
+     * {@link JsonSourceManager}, that serializes it on the {@link ForkJoinPool}. Serializing doesn't need DeepSampler's
+     * thread-local SampleRepository, so it is safe to run it on the pool threads.
+     */
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        final List<Path> staleShardFiles = getShardFiles();
+        final String recordingId = UUID.randomUUID().toString();
+
+        final Map<String, Map<SampleDefinition, List<MethodCall>>> samplesBySamplerId = new LinkedHashMap<>();
+        sampleMethodToSampleMap.forEach((sampleDefinition, calls) -> samplesBySamplerId
+                .computeIfAbsent(sampleDefinition.getSampleId(), samplerId -> new LinkedHashMap<>())
+                .put(sampleDefinition, calls));
+
+        final Map<String, Path> shardFiles = new LinkedHashMap<>();
+        samplesBySamplerId.keySet().forEach(samplerId -> shardFiles.put(samplerId, getShardFile(recordingId, samplerId)));
+
+        try {
+            Files.createDirectories(shardDirectory);
+
+            final List<CompletableFuture<Void>> writingShards = samplesBySamplerId.entrySet().stream()
+                    .map(samples -> {
+                        final SourceManager shardSourceManager = getJsonSourceManagerBuilder().buildWithFile(shardFiles.get(samples.getKey()));
+                        return CompletableFuture.runAsync(() -> shardSourceManager.save(samples.getValue(), persistentSamplerContext), forkJoinPool);
+                    })
+                    .collect(Collectors.toList());
+
+            join(CompletableFuture.allOf(writingShards.toArray(new CompletableFuture[0])));
+
+            writeManifest(shardFiles);
+            countSavedBytes(sizeOf(shardFiles.values()));
+        } catch (IOException e) {
+            deleteShards(shardFiles.values(), e);
+            throw new PersistenceException("The shards could not be written to " + shardDirectory + ".", e);
+        } catch (RuntimeException e) {
+            deleteShards(shardFiles.values(), e);
+            throw e;
+        }
+
+        try {
+            for (final Path staleShardFile : staleShardFiles) {
+                Files.deleteIfExists(staleShardFile);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The shards of the previous recording could not be deleted from " + shardDirectory + ".", e);
+        }
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final List<Path> shardFiles = getShardFiles();
+        final List<SourceManager> shardSourceManagers = shardFiles.stream()
+                .map(shardFile -> getJsonSourceManagerBuilder().buildWithFile(shardFile))
+                .collect(Collectors.toList());
+
+        if (shardSourceManagers.isEmpty()) {
+            throw new PersistenceException("The manifest " + getManifestFile() + " does not list any shards.");
+        }
+
+        final PersistentModel persistentModel = new ParallelSourceManager(forkJoinPool, shardSourceManagers).load(persistentSamplerContext);
+        countLoadedBytes(sizeOf(shardFiles));
+
+        return persistentModel;
+    }
+
+    /**
+     * @param samplerId The id of a sampler
+     * @return The shard of the latest recording, that contains the samples of samplerId, or null if the latest
+     * recording doesn't contain samplerId.
+     */
+    public Path getShardFile(final String samplerId) {
+        return readManifest().get(samplerId);
+    }
+
+    /**
+     * @return The manifest, that lists the shards of the latest recording
+     */
+    public Path getManifestFile() {
+        return shardDirectory.resolve(MANIFEST_FILE_NAME);
+    }
+
+    /**
+     * @return The shards of the latest recording, as they are listed in the manifest
+     */
+    public List<Path> getShardFiles() {
+        return new ArrayList<>(readManifest().values());
+    }
+
+    /**
+     * @return The shards of the latest recording, mapped by the ids of their samplers
+     */
+    private Map<String, Path> readManifest() {
+        final Path manifestFile = getManifestFile();
+        final Map<String, Path> shardFiles = new LinkedHashMap<>();
+
+        if (!Files.exists(manifestFile)) {
+            return shardFiles;
+        }
+
+        try {
+            for (final String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    final String[] columns = line.split(COLUMN_SEPARATOR);
+                    shardFiles.put(URLDecoder.decode(columns[1], StandardCharsets.UTF_8.name()), shardDirectory.resolve(columns[0]));
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("The manifest " + manifestFile + " could not be read.", e);
+        }
+
+        return shardFiles;
+    }
+
+    /**
+     * Each line of the manifest contains the file name of a shard, followed by the URL-encoded id of its sampler.
+     */
+    private void writeManifest(final Map<String, Path> shardFiles) throws IOException {
+        final StringBuilder manifest = new StringBuilder();
+
+        for (final Map.Entry<String, Path> shardFile : shardFiles.entrySet()) {
+            manifest.append(shardFile.getValue().getFileName())
+                    .append(COLUMN_SEPARATOR)
+                    .append(encode(shardFile.getKey()))
+                    .append(System.lineSeparator());
+        }
+
+        writeSampleFile(getManifestFile(), out -> out.write(manifest.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sampler ids are URL-encoded, so that they can be used as file names.
+     */
+    private Path getShardFile(final String recordingId, final String samplerId) {
+        return shardDirectory.resolve(recordingId + "-" + encode(samplerId) + SHARD_SUFFIX);
+    }
+
+    /**
+     * Deletes the shards of a failing recording. Shards, that cannot be deleted, are reported as suppressed exceptions
+     * of failure.
+     */
+    private static void deleteShards(final Collection<Path> shardFiles, final Exception failure) {
+        for (final Path shardFile : shardFiles) {
+            try {
+                Files.deleteIfExists(shardFile);
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static String encode(final String samplerId) {
+        try {
+            return URLEncoder.encode(samplerId, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new PersistenceException("UTF-8 is not supported by this JVM.", e);
+        }
+    }
+
+    private void join(final CompletableFuture<Void> writingShards) {
+        try {
+            writingShards.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new PersistenceException("The shards could not be written to " + shardDirectory + ".", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts sample files from and to a layout, that writes identical return values only once.
+ * <p>
+ * Each return value is identified by the hash of its JSON. Return values, that have been recorded more than once,
+ * are written to a table at the beginning of the file. The method calls refer to them by their hash:
+ * <pre>
+ * {
+ *   "valueTable" : {
+ *     "9f86d081..." : { "@type" : "...", "values" : { "0$name" : "Jean-Luc Picard" } }
+ *   },
+ *   "id" : "...",
+ *   "sampleMethodToSampleMap" : {
+ *     "loadPerson" : {
+ *       "callMap" : [ {
+ *         "parameter" : { "args" : [ 1 ] },
+ *         "returnValueRef" : "9f86d081..."
+ *       } ]
+ *     }
+ *   }
+ * }
+ * </pre>
+ */
+public final class SharedValues {
+
+    public static final String VALUE_TABLE = "valueTable";
+    public static final String RETURN_VALUE = "returnValue";
+    public static final String RETURN_VALUE_REF = "returnValueRef";
+
+    private SharedValues() {
+        // This is a utility class, that is not intended to be instantiated.
+    }
+
+    /**
+     * Collects all return values, that have been recorded more than once.
+     *
+     * @param in The sample file in the default layout
+     * @return The shared return values, mapped by their hash
+     * @throws IOException if in cannot be read
+     */
+    public static Map<String, JsonNode> collectSharedValues(final InputStream in) throws IOException {
+        final Map<String, JsonNode> values = new LinkedHashMap<>();
+        final Map<String, Integer> occurrences = new HashMap<>();
+
+        SampleJson.readCalls(in, (samplerId, call) -> {
+            final JsonNode returnValue = call.get(RETURN_VALUE);
+
+            if (returnValue != null) {
+                final String hash = SampleJson.hash(SampleJson.toBytes(returnValue));
+                values.putIfAbsent(hash, returnValue);
+                occurrences.merge(hash, 1, Integer::sum);
+            }
+        });
+
+        values.keySet().removeIf(hash -> occurrences.get(hash) < 2);
+
+        return values;
+    }
+
+    /**
+     * Converts a sample file from the default layout to the shared layout.
+     *
+     * @param in           The sample file in the default layout
+     * @param out          The sample file in the shared layout
+     * @param sharedValues The shared return values, as they have been collected by {@link #collectSharedValues(InputStream)}
+     * @throws IOException if in cannot be read, or out cannot be written
+     */
+    public static void share(final InputStream in, final OutputStream out, final Map<String, JsonNode> sharedValues) throws IOException {
+        try (JsonParser parser = SampleJson.createParser(in);
+             JsonGenerator generator = SampleJson.createGenerator(out)) {
+
+            SampleJson.expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+            generator.writeObjectFieldStart(VALUE_TABLE);
+
+            for (final Map.Entry<String, JsonNode> sharedValue : sharedValues.entrySet()) {
+                generator.writeFieldName(sharedValue.getKey());
+                generator.writeTree(sharedValue.getValue());
+            }
+
+            generator.writeEndObject();
+
+            copyTopLevelFields(parser, generator, (samplerId, call) -> {
+                final JsonNode returnValue = call.get(RETURN_VALUE);
+
+                if (returnValue != null) {
+                    final String hash = SampleJson.hash(SampleJson.toBytes(returnValue));
+
+                    if (sharedValues.containsKey(hash)) {
+                        call.remove(RETURN_VALUE);
+                        call.put(RETURN_VALUE_REF, hash);
+                    }
+                }
+
+                return call;
+            });
+
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Converts a sample file from the shared layout to the default layout. Sample files, that don't start with a
+     * value table, are copied unchanged.
+     *
+     * @param in  The sample file in the shared or in the default layout
+     * @param out The sample file in the default layout
+     * @throws IOException if in cannot be read, or out cannot be written
+     */
+    public static void expand(final InputStream in, final OutputStream out) throws IOException {
+        try (JsonParser parser = SampleJson.createParser(in);
+             JsonGenerator generator = SampleJson.createGenerator(out)) {
+
+            SampleJson.expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+
+            final Map<String, JsonNode> sharedValues = new HashMap<>();
+
+            copyTopLevelFields(parser, generator, (samplerId, call) -> {
+                final JsonNode hash = call.remove(RETURN_VALUE_REF);
+
+                if (hash != null) {
+                    final JsonNode returnValue = sharedValues.get(hash.asText());
+
+                    if (returnValue == null) {
+                        throw new PersistenceException("The sample %s refers to the unknown return value %s", samplerId, hash.asText());
+                    }
+
+                    call.set(RETURN_VALUE, returnValue);
+                }
+
+                return call;
+            }, sharedValues);
+
+            generator.writeEndObject();
+        }
+    }
+
+    private static void copyTopLevelFields(final JsonParser parser, final JsonGenerator generator,
+                                           final SampleJson.CallTransformer callTransformer) throws IOException {
+        copyTopLevelFields(parser, generator, callTransformer, new HashMap<>());
+    }
+
+    private static void copyTopLevelFields(final JsonParser parser, final JsonGenerator generator,
+                                           final SampleJson.CallTransformer callTransformer,
+                                           final Map<String, JsonNode> sharedValues) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            if (VALUE_TABLE.equals(fieldName)) {
+                readValueTable(parser, sharedValues);
+            } else if (SampleJson.SAMPLE_METHOD_TO_SAMPLE_MAP.equals(fieldName)) {
+                generator.writeFieldName(fieldName);
+                SampleJson.copyCalls(parser, generator, callTransformer);
+            } else {
+                generator.writeFieldName(fieldName);
+                generator.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    private static void readValueTable(final JsonParser parser, final Map<String, JsonNode> sharedValues) throws IOException {
+        SampleJson.expectCurrentToken(parser, JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String hash = parser.getCurrentName();
+            parser.nextToken();
+            sharedValues.put(hash, parser.readValueAsTree());
+        }
+    }
+}
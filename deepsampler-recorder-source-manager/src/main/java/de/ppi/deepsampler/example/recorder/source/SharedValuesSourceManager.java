@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that writes sample files in the layout of
+ * {@link SharedValues}. Return values, that have been recorded more than once, are written only once per file.
+ * <p>
+ * Sample files in the shared layout and in the default layout can both be loaded. Each method call still receives
+ * its own copy of the return value during replay, so mutable return values can be shared safely.
+ */
+public class SharedValuesSourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     */
+    public SharedValuesSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJsonFile(sampleMethodToSampleMap, persistentSamplerContext, jsonFile -> {
+            final Map<String, JsonNode> sharedValues;
+
+            try (InputStream in = Files.newInputStream(jsonFile)) {
+                sharedValues = SharedValues.collectSharedValues(in);
+            }
+
+            try (InputStream in = Files.newInputStream(jsonFile)) {
+                writeSampleFile(sampleFile, out -> SharedValues.share(in, out, sharedValues));
+            }
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        return loadJson(out -> {
+            try (InputStream in = Files.newInputStream(sampleFile)) {
+                SharedValues.expand(in, out);
+            }
+        }, persistentSamplerContext);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that loads a sample file from the classpath using the
+ * snapshot, that has been compiled by the {@link SampleSnapshotCompiler} during the build.
+ * <p>
+ * If a snapshot exists, only the entries of the samplers, that are declared by the currently active samplers, are
+ * read from the snapshot. Otherwise, e.g. if the tests are started by an IDE, that doesn't run the
+ * exec-maven-plugin, the JSON-file is loaded as usual. Both files are resolved using the {@link SampleResourceIndex}.
+ * If the JSON-file or the snapshot has another size than the indexed one, e.g. because an IDE has copied a changed
+ * JSON-file over the indexed one, the snapshot is outdated and the JSON-file is loaded as well.
+ * <p>
+ * Since classpath resources cannot be written, this {@link de.ppi.deepsampler.persistence.api.SourceManager} can only
+ * be used to load samples.
+ */
+public class SnapshotSourceManager extends JsonStreamSourceManager {
+
+    private final String classPathResource;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param classPathResource        The name of the JSON-resource as it is described by {@link ClassLoader#getResource(String)}
+     */
+    public SnapshotSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final String classPathResource) {
+        super(jsonSourceManagerBuilder);
+        this.classPathResource = classPathResource;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        throw new PersistenceException("Samples cannot be saved to the classpath resource " + classPathResource);
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        final Set<String> declaredSamplerIds = SamplerIdFilteringSourceManager.getDeclaredSamplerIds();
+        final Path snapshotFile = findSnapshotFile();
+
+        if (snapshotFile != null && isSnapshotUpToDate()) {
+            final IndexedSampleContainer snapshot = IndexedSampleContainer.forFile(snapshotFile);
+
+            return loadJson(out -> snapshot.writeSampleJson(out, declaredSamplerIds::contains), persistentSamplerContext);
+        }
+
+        return loadJson(out -> {
+            try (InputStream in = openResource(classPathResource)) {
+                SampleJson.filterSamplerIds(in, out, declaredSamplerIds::contains);
+            }
+        }, persistentSamplerContext);
+    }
+
+    /**
+     * @return The snapshot in the file system, or null if no snapshot has been compiled, or if the snapshot is part
+     * of a jar.
+     */
+    Path findSnapshotFile() {
+        final URL snapshot = SampleResourceIndex.getInstance().getResource(classPathResource + SampleSnapshotCompiler.SNAPSHOT_SUFFIX);
+
+        if (snapshot == null || !"file".equals(snapshot.getProtocol())) {
+            return null;
+        }
+
+        try {
+            return Paths.get(snapshot.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private boolean isSnapshotUpToDate() {
+        final SampleResourceIndex index = SampleResourceIndex.getInstance();
+
+        return index.isUpToDate(classPathResource) && index.isUpToDate(classPathResource + SampleSnapshotCompiler.SNAPSHOT_SUFFIX);
+    }
+
+    private static InputStream openResource(final String classPathResource) throws IOException {
+        return SampleResourceIndex.getInstance().openStream(classPathResource);
+    }
+}
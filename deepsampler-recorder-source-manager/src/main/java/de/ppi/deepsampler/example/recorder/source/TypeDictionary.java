@@ -0,0 +1,235 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Converts sample files from and to a compact layout, that doesn't repeat the full qualified names of types.
+ * <p>
+ * Jackson writes type names either as a property, e.g. <code>"@type" : "de.ppi.deepsampler.persistence.bean.DefaultPersistentBean"</code>,
+ * or as the first element of an array, e.g. <code>[ "java.time.LocalDateTime", "2335047.0000" ]</code>. In the compact
+ * layout all type names are written once to a table at the beginning of the file, and the values refer to the types
+ * by their index in this table:
+ * <pre>
+ * {
+ *   "typeTable" : [ "java.time.LocalDateTime" ],
+ *   "id" : "...",
+ *   "sampleMethodToSampleMap" : {
+ *     ...
+ *       "0$birthday" : [ "#0", "2335047.0000" ]
+ *     ...
+ *   }
+ * }
+ * </pre>
+ * Strings in these positions, that already start with <code>#</code>, are escaped by a second <code>#</code>, so the
+ * conversion is lossless.
+ */
+public final class TypeDictionary {
+
+    public static final String TYPE_TABLE = "typeTable";
+
+    private static final String TYPE_PROPERTY = "@type";
+    private static final String TYPE_REFERENCE_PREFIX = "#";
+    private static final Pattern TYPE_NAME = Pattern.compile("([\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*\\.)+"
+            + "[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*");
+
+    private TypeDictionary() {
+        // This is a utility class, that is not intended to be instantiated.
+    }
+
+    /**
+     * Collects all type names from a sample file.
+     *
+     * @param in The sample file in the default layout
+     * @return The type names, mapped to their index in the type table
+     * @throws IOException if in cannot be read
+     */
+    public static Map<String, Integer> collectTypeNames(final InputStream in) throws IOException {
+        final Map<String, Integer> typeTable = new LinkedHashMap<>();
+
+        try (JsonParser parser = SampleJson.createParser(in)) {
+            JsonToken previousToken = null;
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != null) {
+                final boolean isTypePosition = previousToken == JsonToken.START_ARRAY
+                        || (previousToken == JsonToken.FIELD_NAME && TYPE_PROPERTY.equals(parser.getCurrentName()));
+
+                if (token == JsonToken.VALUE_STRING && isTypePosition && TYPE_NAME.matcher(parser.getText()).matches()) {
+                    typeTable.putIfAbsent(parser.getText(), typeTable.size());
+                }
+
+                previousToken = token;
+            }
+        }
+
+        return typeTable;
+    }
+
+    /**
+     * Converts a sample file from the default layout to the compact layout.
+     *
+     * @param in        The sample file in the default layout
+     * @param out       The sample file in the compact layout
+     * @param typeTable The type names, as they have been collected by {@link #collectTypeNames(InputStream)}
+     * @throws IOException if in cannot be read, or out cannot be written
+     */
+    public static void compact(final InputStream in, final OutputStream out, final Map<String, Integer> typeTable) throws IOException {
+        try (JsonParser parser = SampleJson.createParser(in);
+             JsonGenerator generator = SampleJson.createGenerator(out)) {
+
+            SampleJson.expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(TYPE_TABLE);
+
+            for (final String typeName : typeTable.keySet()) {
+                generator.writeString(typeName);
+            }
+
+            generator.writeEndArray();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                generator.writeFieldName(parser.getCurrentName());
+                parser.nextToken();
+                copy(parser, generator, typeName -> {
+                    final Integer typeId = typeTable.get(typeName);
+
+                    if (typeId != null) {
+                        return TYPE_REFERENCE_PREFIX + typeId;
+                    }
+
+                    return typeName.startsWith(TYPE_REFERENCE_PREFIX) ? TYPE_REFERENCE_PREFIX + typeName : typeName;
+                });
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Converts a sample file from the compact layout to the default layout. A sample file is only treated as compact,
+     * if its first property is the type table, as it is written by {@link #compact(InputStream, OutputStream, Map)}.
+     * All other sample files are in the default layout and are copied unchanged, even if they contain strings, that
+     * start with <code>#</code>.
+     *
+     * @param in  The sample file in the compact or in the default layout
+     * @param out The sample file in the default layout
+     * @throws IOException if in cannot be read, or out cannot be written
+     */
+    public static void expand(final InputStream in, final OutputStream out) throws IOException {
+        try (JsonParser parser = SampleJson.createParser(in);
+             JsonGenerator generator = SampleJson.createGenerator(out)) {
+
+            SampleJson.expectToken(parser, JsonToken.START_OBJECT);
+            generator.writeStartObject();
+
+            final List<String> typeTable = new ArrayList<>();
+            UnaryOperator<String> typeNameMapper = UnaryOperator.identity();
+            boolean isFirstField = true;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if (isFirstField && TYPE_TABLE.equals(fieldName)) {
+                    readTypeTable(parser, typeTable);
+                    typeNameMapper = typeName -> resolveTypeName(typeTable, typeName);
+                    isFirstField = false;
+                    continue;
+                }
+
+                isFirstField = false;
+                generator.writeFieldName(fieldName);
+                copy(parser, generator, typeNameMapper);
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    private static void readTypeTable(final JsonParser parser, final List<String> typeTable) throws IOException {
+        SampleJson.expectCurrentToken(parser, JsonToken.START_ARRAY);
+
+        while (parser.nextToken() == JsonToken.VALUE_STRING) {
+            typeTable.add(parser.getText());
+        }
+    }
+
+    private static String resolveTypeName(final List<String> typeTable, final String typeName) {
+        if (!typeName.startsWith(TYPE_REFERENCE_PREFIX)) {
+            return typeName;
+        }
+
+        final String reference = typeName.substring(TYPE_REFERENCE_PREFIX.length());
+        return reference.startsWith(TYPE_REFERENCE_PREFIX) ? reference : resolve(typeTable, reference);
+    }
+
+    private static String resolve(final List<String> typeTable, final String reference) {
+        try {
+            return typeTable.get(Integer.parseInt(reference));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new PersistenceException("The sample file refers to the unknown type #" + reference, e);
+        }
+    }
+
+    /**
+     * Copies the current value from parser to generator. All strings, that may contain a type name, are passed through
+     * typeNameMapper.
+     */
+    private static void copy(final JsonParser parser, final JsonGenerator generator, final UnaryOperator<String> typeNameMapper) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                generator.writeStartObject();
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String fieldName = parser.getCurrentName();
+                    generator.writeFieldName(fieldName);
+                    parser.nextToken();
+
+                    if (TYPE_PROPERTY.equals(fieldName) && parser.currentToken() == JsonToken.VALUE_STRING) {
+                        generator.writeString(typeNameMapper.apply(parser.getText()));
+                    } else {
+                        copy(parser, generator, typeNameMapper);
+                    }
+                }
+
+                generator.writeEndObject();
+                break;
+            case START_ARRAY:
+                generator.writeStartArray();
+                boolean isFirstElement = true;
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (isFirstElement && parser.currentToken() == JsonToken.VALUE_STRING) {
+                        generator.writeString(typeNameMapper.apply(parser.getText()));
+                    } else {
+                        copy(parser, generator, typeNameMapper);
+                    }
+
+                    isFirstElement = false;
+                }
+
+                generator.writeEndArray();
+                break;
+            default:
+                generator.copyCurrentEvent(parser);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.core.model.MethodCall;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.persistence.PersistentSamplerContext;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import de.ppi.deepsampler.persistence.model.PersistentModel;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that writes sample files in the compact layout of
+ * {@link TypeDictionary}. Each type name is written only once per file, no matter how many values of this type
+ * have been recorded.
+ * <p>
+ * Sample files in the compact layout and in the default layout can both be loaded.
+ */
+public class TypeDictionarySourceManager extends JsonStreamSourceManager {
+
+    private final Path sampleFile;
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     */
+    public TypeDictionarySourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        super(jsonSourceManagerBuilder);
+        this.sampleFile = sampleFile;
+    }
+
+    @Override
+    public void save(final Map<SampleDefinition, List<MethodCall>> sampleMethodToSampleMap, final PersistentSamplerContext persistentSamplerContext) {
+        saveJsonFile(sampleMethodToSampleMap, persistentSamplerContext, jsonFile -> {
+            final Map<String, Integer> typeTable;
+
+            try (InputStream in = Files.newInputStream(jsonFile)) {
+                typeTable = TypeDictionary.collectTypeNames(in);
+            }
+
+            try (InputStream in = Files.newInputStream(jsonFile)) {
+                writeSampleFile(sampleFile, out -> TypeDictionary.compact(in, out, typeTable));
+            }
+        });
+    }
+
+    @Override
+    public PersistentModel load(final PersistentSamplerContext persistentSamplerContext) {
+        return loadJson(out -> {
+            try (InputStream in = Files.newInputStream(sampleFile)) {
+                TypeDictionary.expand(in, out);
+            }
+        }, persistentSamplerContext);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * A {@link de.ppi.deepsampler.persistence.api.SourceManager} that loads only the samples, that are declared by the
+ * currently active samplers, and remembers them in {@link SampleUsage}. After all tests have run, the samples, that
+ * have never been loaded, can be removed from the file using {@link SampleUsage#compactAll()}.
+ * <p>
+ * Loading and saving is done by the {@link SamplerIdFilteringSourceManager}, this class only records the usage.
+ */
+public class UsageTrackingSourceManager extends SamplerIdFilteringSourceManager {
+
+    /**
+     * @param jsonSourceManagerBuilder The builder that configures the underlying {@link JsonSourceManager}
+     * @param sampleFile               The sample file
+     */
+    public UsageTrackingSourceManager(final JsonSourceManager.Builder jsonSourceManagerBuilder, final Path sampleFile) {
+        super(jsonSourceManagerBuilder, sampleFile);
+    }
+
+    @Override
+    protected void samplesLoaded(final Set<String> loadedSamplerIds) {
+        SampleUsage.recordUsage(getSampleFile(), loadedSamplerIds);
+    }
+}
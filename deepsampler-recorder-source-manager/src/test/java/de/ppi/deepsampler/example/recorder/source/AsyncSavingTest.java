@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how recordings can be saved in the background using the {@link AsyncSavingSourceManager}.
+ */
+class AsyncSavingTest {
+
+    public static final Path ASYNC_SAMPLE_FILE = Paths.get("./tmp/asyncSamples.json");
+    public static final Path NOT_A_DIRECTORY = Paths.get("./tmp/notADirectory");
+    public static final Path BROKEN_SAMPLE_FILE = NOT_A_DIRECTORY.resolve("brokenAsyncSamples.json");
+    public static final Path OTHER_BROKEN_SAMPLE_FILE = NOT_A_DIRECTORY.resolve("otherBrokenAsyncSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    void aRecordingIsLoadedAfterItHasBeenWrittenInTheBackground() {
+        // 👉 GIVEN
+        // (1) The AsyncSavingSourceManager converts the recording to JSON, while the test is still running, and writes
+        // the JSON in the background.
+        final SourceManager asyncSourceManager = new AsyncSavingSourceManager(JsonStreamSourceManager.defaultBuilder(), ASYNC_SAMPLE_FILE);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+
+        // (2) recordSamples() returns, before the file has been written.
+        PersistentSampler.source(asyncSourceManager).recordSamples();
+        Sampler.clear();
+
+        // 🧪 WHEN
+        // (3) Loading the same file waits until the file has been written.
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSampler.source(asyncSourceManager).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+    }
+
+    @Test
+    void errorsOfBackgroundWritesAreReported() throws IOException {
+        // 👉 GIVEN
+        // (4) The sample files cannot be written, because their directory is blocked by a regular file.
+        Files.createDirectories(NOT_A_DIRECTORY.toAbsolutePath().getParent());
+        Files.write(NOT_A_DIRECTORY, new byte[0]);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        greetingService.createGreeting(1);
+
+        // 🧪 WHEN
+        PersistentSampler.source(new AsyncSavingSourceManager(JsonStreamSourceManager.defaultBuilder(), BROKEN_SAMPLE_FILE)).recordSamples();
+        PersistentSampler.source(new AsyncSavingSourceManager(JsonStreamSourceManager.defaultBuilder(), OTHER_BROKEN_SAMPLE_FILE)).recordSamples();
+
+        // 🔬 THEN
+        // (5) All writes are awaited, e.g. at the end of a test suite. The first error is thrown, the other errors are
+        // attached to it as suppressed exceptions.
+        assertThatThrownBy(AsyncSavingSourceManager::awaitPendingWrites)
+                .isInstanceOf(PersistenceException.class)
+                .hasMessageContaining("could not be saved")
+                .satisfies(error -> assertThat(error.getSuppressed()).hasSize(1));
+    }
+
+    @AfterEach
+    void clearSamplers() {
+        Sampler.clear();
+        NOT_A_DIRECTORY.toFile().delete();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        ASYNC_SAMPLE_FILE.toFile().delete();
+    }
+}
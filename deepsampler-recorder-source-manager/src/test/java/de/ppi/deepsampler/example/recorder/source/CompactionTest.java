@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This test shows how samples, that are not used by any test, can be removed from a sample file using
+ * {@link UsageTrackingSourceManager} and {@link SampleUsage}.
+ */
+class CompactionTest {
+
+    public static final Path SHARED_SAMPLE_FILE = Paths.get("./src/test/resources/de/ppi/deepsampler/example/recorder/source/sharedSamples.json");
+    public static final Path TRACKED_SAMPLE_FILE = Paths.get("./tmp/trackedSamples.json");
+    public static final Path UNUSED_SAMPLE_FILE = Paths.get("./tmp/unusedSamples.json");
+    public static final Path BROKEN_SAMPLE_FILE = Paths.get("./tmp/brokenCompaction/brokenSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    void unusedSamplesAreRemoved() throws IOException {
+        // 👉 GIVEN
+        // (1) We work on a copy of sharedSamples.json, which contains "loadPerson" and "loadFriend".
+        Files.createDirectories(TRACKED_SAMPLE_FILE.toAbsolutePath().getParent());
+        Files.copy(SHARED_SAMPLE_FILE, TRACKED_SAMPLE_FILE, StandardCopyOption.REPLACE_EXISTING);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSampler.source(new UsageTrackingSourceManager(JsonStreamSourceManager.defaultBuilder(), TRACKED_SAMPLE_FILE)).load();
+        assertEquals("Hello Jean-Luc Picard!", greetingService.createGreeting(1));
+
+        // 🧪 WHEN
+        // (2) After all tests have run, the file is compacted. Usually this would be done by SampleUsage.compactAll()
+        // in an @AfterAll method of a test suite.
+        final boolean compacted = SampleUsage.compact(TRACKED_SAMPLE_FILE);
+
+        // 🔬 THEN
+        // (3) "loadFriend" has never been loaded, so it has been removed.
+        assertThat(compacted).isTrue();
+        assertThat(SampleUsage.getUsedSamplerIds(TRACKED_SAMPLE_FILE)).containsExactly("loadPerson");
+        assertThat(TRACKED_SAMPLE_FILE).content().contains("\"loadPerson\"").doesNotContain("\"loadFriend\"");
+
+        // (4) A second compaction doesn't find anything to remove, so the file is not rewritten.
+        assertThat(SampleUsage.compact(TRACKED_SAMPLE_FILE)).isFalse();
+    }
+
+    @Test
+    void filesWithoutUsedSamplesAreNotCompacted() throws IOException {
+        // 👉 GIVEN
+        // (5) No sample has been loaded from this file, e.g. because the tests, that use it, have not run.
+        Files.createDirectories(UNUSED_SAMPLE_FILE.toAbsolutePath().getParent());
+        Files.copy(SHARED_SAMPLE_FILE, UNUSED_SAMPLE_FILE, StandardCopyOption.REPLACE_EXISTING);
+        final byte[] samplesBeforeCompaction = Files.readAllBytes(UNUSED_SAMPLE_FILE);
+
+        // 🧪 WHEN
+        final boolean compacted = SampleUsage.compact(UNUSED_SAMPLE_FILE);
+        final boolean compactedWithoutSamplerIds = SampleUsage.compact(UNUSED_SAMPLE_FILE, Collections.emptySet());
+
+        // 🔬 THEN
+        // (6) The file is not emptied, it is left untouched.
+        assertThat(compacted).isFalse();
+        assertThat(compactedWithoutSamplerIds).isFalse();
+        assertThat(Files.readAllBytes(UNUSED_SAMPLE_FILE)).isEqualTo(samplesBeforeCompaction);
+    }
+
+    @Test
+    void brokenFilesLeaveNoCompactedFileBehind() throws IOException {
+        // 👉 GIVEN
+        // (7) The sample file has been truncated, so it cannot be parsed.
+        Files.createDirectories(BROKEN_SAMPLE_FILE.toAbsolutePath().getParent());
+        Files.write(BROKEN_SAMPLE_FILE, "{ \"sampleMethodToSampleMap\" : { \"loadPerson\" : ".getBytes(StandardCharsets.UTF_8));
+
+        // 🧪 WHEN
+        assertThrows(PersistenceException.class, () -> SampleUsage.compact(BROKEN_SAMPLE_FILE, Collections.singleton("loadPerson")));
+
+        // 🔬 THEN
+        // (8) The temporary file, that should have received the compacted samples, has been deleted.
+        try (Stream<Path> files = Files.list(BROKEN_SAMPLE_FILE.toAbsolutePath().getParent())) {
+            assertThat(files.map(Path::getFileName).map(Path::toString)).containsExactly("brokenSamples.json");
+        }
+    }
+
+    @AfterEach
+    void clearSamplers() {
+        Sampler.clear();
+        TRACKED_SAMPLE_FILE.toFile().delete();
+        UNUSED_SAMPLE_FILE.toFile().delete();
+        BROKEN_SAMPLE_FILE.toFile().delete();
+    }
+}
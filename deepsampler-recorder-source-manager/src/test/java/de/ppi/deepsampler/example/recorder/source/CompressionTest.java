@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how sample files can be compressed using the {@link CompressingSourceManager}.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a sample file and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CompressionTest {
+
+    public static final Path COMPRESSED_SAMPLE_FILE = Paths.get("./tmp/compressedSamples.json.gz");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void aCompressedSampleFileIsRecorded() throws IOException {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+
+        // (1) The CompressingSourceManager uses gzip by default. Other formats can be used by passing a SampleCodec.
+        PersistentSampler.source(new CompressingSourceManager(JsonStreamSourceManager.defaultBuilder(), COMPRESSED_SAMPLE_FILE)).recordSamples();
+
+        // 🔬 THEN
+        // (2) The file starts with the magic number of gzip.
+        final byte[] magicNumber = Arrays.copyOf(Files.readAllBytes(COMPRESSED_SAMPLE_FILE), 2);
+        assertThat(magicNumber).isEqualTo(new GzipSampleCodec().getMagicNumber());
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void aCompressedSampleFileIsLoaded() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (3) The codec is detected by the magic number, so loading doesn't need any further configuration.
+        PersistentSampler.source(new CompressingSourceManager(JsonStreamSourceManager.defaultBuilder(), COMPRESSED_SAMPLE_FILE)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+
+        Sampler.clear();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        COMPRESSED_SAMPLE_FILE.toFile().delete();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how large recordings can be stored in an {@link IndexedSampleContainer}, so that loading reads only
+ * the entries, that are needed by a test.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a container and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class IndexedContainerTest {
+
+    public static final Path CONTAINER_FILE = Paths.get("./tmp/indexedSamples.dsc");
+    public static final Path SHARED_SAMPLE_FILE = Paths.get("./src/test/resources/de/ppi/deepsampler/example/recorder/source/sharedSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void aRecordingIsAppendedToTheContainer() throws IOException {
+        // 👉 GIVEN
+        // (1) The container already holds the samples from sharedSamples.json...
+        try (InputStream in = Files.newInputStream(SHARED_SAMPLE_FILE)) {
+            new IndexedSampleContainer(CONTAINER_FILE).append(in);
+        }
+        final byte[] containerBeforeRecording = Files.readAllBytes(CONTAINER_FILE);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (2) ... and we record a new sample for "loadPerson"
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+
+        final SourceManager containerSourceManager = new IndexedContainerSourceManager(JsonStreamSourceManager.defaultBuilder(), CONTAINER_FILE);
+        PersistentSampler.source(containerSourceManager).recordSamples();
+
+        // 🔬 THEN
+        // (3) The new recording has been appended, so the entries and the index of the first recording have not been
+        // rewritten. Only the offset of the current index in the header has been switched to the new index.
+        final byte[] containerAfterRecording = Files.readAllBytes(CONTAINER_FILE);
+        assertThat(Arrays.copyOfRange(containerAfterRecording, IndexedSampleContainer.HEADER_LENGTH, containerBeforeRecording.length))
+                .isEqualTo(Arrays.copyOfRange(containerBeforeRecording, IndexedSampleContainer.HEADER_LENGTH, containerBeforeRecording.length));
+        assertThat(new IndexedSampleContainer(CONTAINER_FILE).getSamplerIds()).containsExactlyInAnyOrder("loadPerson", "loadFriend");
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void onlyTheDeclaredSamplersAreReadFromTheContainer() {
+        // 👉 GIVEN
+        // (4) "loadFriend" references an unknown type. It can only be loaded, if it is skipped.
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(new IndexedContainerSourceManager(JsonStreamSourceManager.defaultBuilder(), CONTAINER_FILE)).load();
+
+        // 🔬 THEN
+        // (5) The entry, that has been recorded last, replaced the entry with the same parameters from sharedSamples.json
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(2)
+    void aMemoryMappedContainerIsSharedByManyLoads() {
+        // 👉 GIVEN
+        // (6) A long test run keeps one MappedSampleContainer for all loads. The entries stay off-heap in the mapped
+        // file, only the 100 most recently copied entries are kept on the heap.
+        final MappedSampleContainer mappedContainer = new MappedSampleContainer(CONTAINER_FILE, 100);
+        final SourceManager containerSourceManager = new IndexedContainerSourceManager(JsonStreamSourceManager.defaultBuilder(), mappedContainer);
+
+        for (int i = 0; i < 2; i++) {
+            PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+            // 🧪 WHEN
+            PersistentSampler.source(containerSourceManager).load();
+
+            // 🔬 THEN
+            assertEquals("Hello Data!", greetingService.createGreeting(1));
+
+            Sampler.clear();
+        }
+
+        // (7) Concurrent loads copy their entries from the mapping at the same time and all of them read the same entries.
+        final String expectedJson = readSampleJson(mappedContainer);
+        assertThat(IntStream.range(0, 8).parallel().mapToObj(i -> readSampleJson(mappedContainer)))
+                .allMatch(expectedJson::equals);
+    }
+
+    @Test
+    @Order(3)
+    void compactingRemovesSupersededEntries() throws IOException {
+        // 👉 GIVEN
+        final long lengthBeforeCompacting = Files.size(CONTAINER_FILE);
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (8) The entry for "loadPerson", that has been replaced by the new recording, and the first index are dropped.
+        // The container is shared with all IndexedContainerSourceManagers of the same file, so they don't read the
+        // container while it is replaced, and the index, that they have cached, is dropped.
+        final IndexedSampleContainer sharedContainer = IndexedSampleContainer.forFile(CONTAINER_FILE);
+        sharedContainer.compact();
+
+        // 🔬 THEN
+        assertThat(Files.size(CONTAINER_FILE)).isLessThan(lengthBeforeCompacting);
+        assertThat(IndexedSampleContainer.forFile(Paths.get("tmp", "indexedSamples.dsc"))).isSameAs(sharedContainer);
+
+        PersistentSampler.source(new IndexedContainerSourceManager(JsonStreamSourceManager.defaultBuilder(), CONTAINER_FILE)).load();
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+
+        Sampler.clear();
+    }
+
+    private static String readSampleJson(final IndexedSampleContainer container) {
+        final ByteArrayOutputStream sampleJson = new ByteArrayOutputStream();
+        container.writeSampleJson(sampleJson, "loadPerson"::equals);
+
+        return new String(sampleJson.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 🧽 We delete old containers, before any tests run, in case some old containers from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearContainerFile() {
+        CONTAINER_FILE.toFile().delete();
+    }
+}
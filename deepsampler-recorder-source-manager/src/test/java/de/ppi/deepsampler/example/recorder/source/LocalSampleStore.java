@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A simple stand-in for a remote sample store, that is used by {@link RemoteStoreTest}. All resources are kept in
+ * memory. The server listens on a random free port of the loopback interface.
+ */
+class LocalSampleStore implements AutoCloseable {
+
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final HttpServer server;
+
+    LocalSampleStore() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/store/", this::handle);
+        server.start();
+    }
+
+    URI getUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/store/");
+    }
+
+    /**
+     * @return The number of requests with the given method and path, e.g. "GET objects/..."
+     */
+    int getRequestCount(final String method, final String resource) {
+        return requestCounts.getOrDefault(method + " " + resource, new AtomicInteger()).get();
+    }
+
+    Map<String, byte[]> getResources() {
+        return resources;
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String resource = exchange.getRequestURI().getRawPath().substring("/store/".length());
+        final String method = exchange.getRequestMethod();
+
+        requestCounts.computeIfAbsent(method + " " + resource, key -> new AtomicInteger()).incrementAndGet();
+
+        try {
+            // Each connection is closed after one request, because reusing a connection after a HEAD-request fails
+            // with the JDK's HttpServer.
+            exchange.getResponseHeaders().set("Connection", "close");
+
+            if ("PUT".equals(method)) {
+                resources.put(resource, readBody(exchange.getRequestBody()));
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+
+            final byte[] content = resources.get(resource);
+
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readBody(final InputStream in) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = in.read(buffer)) >= 0) {
+            body.write(buffer, 0, length);
+        }
+
+        return body.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
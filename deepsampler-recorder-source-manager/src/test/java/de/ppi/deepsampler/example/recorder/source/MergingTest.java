@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the {@link MergingSourceManager} merges new recordings into an existing sample file.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that preceding tests can record a sample file and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MergingTest {
+
+    public static final Path MERGED_SAMPLE_FILE = Paths.get("./tmp/mergedSamples.json");
+    public static final FileTime LONG_AGO = FileTime.fromMillis(0);
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void aSecondRecordingIsMergedIntoTheFile() {
+        // 👉 GIVEN
+        // (1) The first recording contains the Person with the id 1...
+        record("Data", 1);
+
+        // 🧪 WHEN
+        // (2) ... and the second recording contains the Person with the id 2.
+        record("Worf", 2);
+
+        // 🔬 THEN
+        // (3) The file contains both recordings.
+        assertThat(MERGED_SAMPLE_FILE).content().contains("Data", "Worf");
+    }
+
+    @Test
+    @Order(1)
+    void anUnchangedRecordingIsNotWritten() throws IOException {
+        // 👉 GIVEN
+        Files.setLastModifiedTime(MERGED_SAMPLE_FILE, LONG_AGO);
+
+        // 🧪 WHEN
+        // (4) We record the Person with the id 2 again, without any changes...
+        record("Worf", 2);
+
+        // 🔬 THEN
+        // (5) ... so the merged content is the same as before and the file has not been touched.
+        assertThat(Files.getLastModifiedTime(MERGED_SAMPLE_FILE)).isEqualTo(LONG_AGO);
+    }
+
+    @Test
+    @Order(2)
+    void theMergedFileIsLoaded() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(new MergingSourceManager(JsonStreamSourceManager.defaultBuilder(), MERGED_SAMPLE_FILE)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+        assertEquals("Hello Worf!", greetingService.createGreeting(2));
+
+        Sampler.clear();
+    }
+
+    private void record(final String name, final int personId) {
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        personDao.setName(name);
+        greetingService.createGreeting(personId);
+
+        PersistentSampler.source(new MergingSourceManager(JsonStreamSourceManager.defaultBuilder(), MERGED_SAMPLE_FILE)).recordSamples();
+        Sampler.clear();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        MERGED_SAMPLE_FILE.toFile().delete();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.examples.helloworld.PersonId;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.api.SourceManager;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.BiPredicate;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecorded;
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * This test shows how loading and saving samples is measured by a {@link MeasuringSourceManager}. By default, the
+ * measurements are published via JMX, so they can also be observed by JConsole or VisualVM while tests are running.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a sample file and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MetricsTest {
+
+    public static final Path MEASURED_SAMPLE_FILE = Paths.get("./tmp/measuredSamples.json");
+    public static final Path MATCHED_SAMPLE_FILE = Paths.get("./tmp/matchedSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void savingIsMeasured() throws IOException, JMException {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+        greetingService.createGreeting(2);
+
+        // 🧪 WHEN
+        // (1) Any SourceManager can be measured, here it is the JsonSourceManager.
+        final MeasuringSourceManager measuringSourceManager = new MeasuringSourceManager(MEASURED_SAMPLE_FILE,
+                JsonSourceManager.builder().buildWithFile(MEASURED_SAMPLE_FILE));
+        PersistentSampler.source(measuringSourceManager).recordSamples();
+
+        // 🔬 THEN
+        final ObjectName objectName = JmxSampleMetrics.getObjectName(measuringSourceManager.getSourceName());
+        assertEquals(1L, getAttribute(objectName, "Saves"));
+        assertEquals(2L, getAttribute(objectName, "SavedEntries"));
+        assertEquals(Files.size(MEASURED_SAMPLE_FILE), getAttribute(objectName, "SavedBytes"));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void loadingIsMeasured() throws IOException, JMException {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        final MeasuringSourceManager measuringSourceManager = new MeasuringSourceManager(MEASURED_SAMPLE_FILE,
+                JsonSourceManager.builder().buildWithFile(MEASURED_SAMPLE_FILE));
+        PersistentSampler.source(measuringSourceManager).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(2));
+
+        // (2) The latencies are counted in a histogram. Each load appears in exactly one bucket.
+        final ObjectName objectName = JmxSampleMetrics.getObjectName(measuringSourceManager.getSourceName());
+        assertEquals(1L, getAttribute(objectName, "Loads"));
+        assertEquals(2L, getAttribute(objectName, "LoadedEntries"));
+        assertEquals(Files.size(MEASURED_SAMPLE_FILE), getAttribute(objectName, "LoadedBytes"));
+        assertThat((long[]) getAttribute(objectName, "LoadLatencyHistogram")).containsOnlyOnce(1L);
+
+        Sampler.clear();
+    }
+
+    @Test
+    void measurementsCanBeReportedToCustomMetrics() throws IOException {
+        // 👉 GIVEN
+        // (3) Custom SampleMetrics can be passed directly, or registered as a ServiceLoader service to replace the
+        // default JmxSampleMetrics.
+        final JmxSampleMetrics customMetrics = new JmxSampleMetrics(MBeanServerFactory.newMBeanServer());
+        final SourceManager sharedSamples = new MeasuringSourceManager(PartialLoadingTest.SHARED_SAMPLE_FILE,
+                new SamplerIdFilteringSourceManager(JsonStreamSourceManager.defaultBuilder(), PartialLoadingTest.SHARED_SAMPLE_FILE), customMetrics);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(sharedSamples).load();
+
+        // 🔬 THEN
+        final String sourceName = PartialLoadingTest.SHARED_SAMPLE_FILE.toAbsolutePath().normalize().toString();
+        assertEquals(1L, customMetrics.getStatistics(sourceName).getLoadedEntries());
+
+        // (4) Only the bytes of the declared sampler have been read, not the whole sample file.
+        assertThat(customMetrics.getStatistics(sourceName).getLoadedBytes())
+                .isPositive()
+                .isLessThan(Files.size(PartialLoadingTest.SHARED_SAMPLE_FILE));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(2)
+    void failingMetricsDoNotFailTheLoad() {
+        // 👉 GIVEN
+        // (5) SampleMetrics, that fail, e.g. because the measurements cannot be published.
+        final SampleMetrics failingMetrics = new SampleMetrics() {
+            @Override
+            public void recordLoad(final String source, final long bytes, final long entries, final long latencyNanos) {
+                throw new IllegalStateException("The measurement cannot be recorded.");
+            }
+
+            @Override
+            public void recordSave(final String source, final long bytes, final long entries, final long latencyNanos) {
+                throw new IllegalStateException("The measurement cannot be recorded.");
+            }
+        };
+        final SourceManager measuringSourceManager = new MeasuringSourceManager(MEASURED_SAMPLE_FILE,
+                JsonSourceManager.builder().buildWithFile(MEASURED_SAMPLE_FILE), failingMetrics);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(measuringSourceManager).load();
+
+        // 🔬 THEN
+        // (6) The samples have been loaded anyway.
+        assertEquals("Hello Data!", greetingService.createGreeting(2));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(3)
+    void timeSpentInMatchersIsMeasured() {
+        // 👉 GIVEN
+        // (7) A custom matcher is measured, if it is wrapped by MeasuringMatchers.
+        final JmxSampleMetrics matcherMetrics = new JmxSampleMetrics(MBeanServerFactory.newMBeanServer());
+        final BiPredicate<PersonId, PersonId> personIdMatcher = MeasuringMatchers.measure("personIdMatches",
+                MetricsTest::personIdMatches, matcherMetrics);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(personIdMatcher::test))).hasId("loadPersonById");
+        personDao.setName("Data");
+        personDao.loadPerson(new PersonId(1));
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(MATCHED_SAMPLE_FILE)).recordSamples();
+        Sampler.clear();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(personIdMatcher::test))).hasId("loadPersonById");
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(MATCHED_SAMPLE_FILE)).load();
+
+        // 🧪 WHEN
+        final String name = personDao.loadPerson(new PersonId(1)).getName();
+
+        // 🔬 THEN
+        assertEquals("Data", name);
+        assertThat(matcherMetrics.getMatcherStatistics("personIdMatches").getMatches()).isPositive();
+
+        Sampler.clear();
+    }
+
+    @Test
+    void metricsOfSeveralInstancesAreAllPublished() throws JMException {
+        // 👉 GIVEN
+        final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        final JmxSampleMetrics firstMetrics = new JmxSampleMetrics(mBeanServer);
+        final JmxSampleMetrics secondMetrics = new JmxSampleMetrics(mBeanServer);
+
+        // 🧪 WHEN
+        firstMetrics.recordLoad("samples.json", 100, 1, 1000);
+        secondMetrics.recordLoad("samples.json", 200, 2, 1000);
+
+        // 🔬 THEN
+        // (8) The second instance publishes its statistics under a name of its own.
+        final ObjectName firstObjectName = firstMetrics.getRegisteredObjectName(JmxSampleMetrics.SAMPLE_SOURCE, "samples.json");
+        final ObjectName secondObjectName = secondMetrics.getRegisteredObjectName(JmxSampleMetrics.SAMPLE_SOURCE, "samples.json");
+
+        assertEquals(JmxSampleMetrics.getObjectName("samples.json"), firstObjectName);
+        assertNotEquals(firstObjectName, secondObjectName);
+        assertEquals(200L, mBeanServer.getAttribute(secondObjectName, "LoadedBytes"));
+    }
+
+    private static boolean personIdMatches(final PersonId left, final PersonId right) {
+        return left.getId() == right.getId();
+    }
+
+    private static Object getAttribute(final ObjectName objectName, final String attribute) throws JMException {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        return mBeanServer.getAttribute(objectName, attribute);
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        MEASURED_SAMPLE_FILE.toFile().delete();
+        MATCHED_SAMPLE_FILE.toFile().delete();
+    }
+}
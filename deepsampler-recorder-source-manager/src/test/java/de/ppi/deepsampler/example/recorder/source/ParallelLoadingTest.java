@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.examples.helloworld.PersonId;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecorded;
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the samples of one large sample file, or of several sample files, can be deserialized
+ * concurrently.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record the sample files and the
+ * subsequent tests can load them.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ParallelLoadingTest {
+
+    public static final Path DATA_SAMPLE_FILE = Paths.get("./tmp/parallelDataSamples.json");
+    public static final Path WORF_SAMPLE_FILE = Paths.get("./tmp/parallelWorfSamples.json");
+    public static final Path TWO_SAMPLERS_SAMPLE_FILE = Paths.get("./tmp/parallelTwoSamplersSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void twoSampleFilesAreRecorded() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(DATA_SAMPLE_FILE)).recordSamples();
+        Sampler.clear();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName("Worf");
+        greetingService.createGreeting(2);
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(WORF_SAMPLE_FILE)).recordSamples();
+
+        // 🔬 THEN
+        assertThat(DATA_SAMPLE_FILE).exists();
+        assertThat(WORF_SAMPLE_FILE).exists();
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void severalSampleFilesAreLoadedConcurrently() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (1) Each SourceManager is loaded by its own task on the ForkJoinPool. The results are merged, so that
+        // DeepSampler receives the calls from both files at once.
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        PersistentSampler.source(new ParallelSourceManager(forkJoinPool, Arrays.asList(
+                JsonSourceManager.builder().buildWithFile(DATA_SAMPLE_FILE),
+                JsonSourceManager.builder().buildWithFile(WORF_SAMPLE_FILE)))).load();
+        forkJoinPool.shutdown();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+        assertEquals("Hello Worf!", greetingService.createGreeting(2));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(2)
+    void oneSampleFileIsSplitBySamplerIds() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (2) The SamplerIdSplittingSourceManager splits one file by its sampler ids and deserializes the parts
+        // concurrently. By default, the common ForkJoinPool is used.
+        PersistentSampler.source(new SamplerIdSplittingSourceManager(JsonStreamSourceManager.defaultBuilder(), DATA_SAMPLE_FILE)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(3)
+    void theSamplersOfOneSampleFileAreDeserializedConcurrently() {
+        // 👉 GIVEN
+        // (3) The sample file contains two samplers, so it is split into two parts, that are deserialized by two tasks
+        // on the ForkJoinPool.
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(ParallelLoadingTest::personIdMatches))).hasId("loadPersonById");
+        personDao.setName("Data");
+        personDao.loadPerson(1);
+        personDao.loadPerson(new PersonId(1));
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(TWO_SAMPLERS_SAMPLE_FILE)).recordSamples();
+        Sampler.clear();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(ParallelLoadingTest::personIdMatches))).hasId("loadPersonById");
+
+        // 🧪 WHEN
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        PersistentSampler.source(new SamplerIdSplittingSourceManager(JsonStreamSourceManager.defaultBuilder(), TWO_SAMPLERS_SAMPLE_FILE,
+                forkJoinPool)).load();
+        forkJoinPool.shutdown();
+
+        // 🔬 THEN
+        // (4) The samples of both parts have been merged, so both samplers are replayed.
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+        assertEquals("Data", personDao.loadPerson(new PersonId(1)).getName());
+
+        Sampler.clear();
+    }
+
+    private static boolean personIdMatches(final PersonId left, final PersonId right) {
+        return left.getId() == right.getId();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        DATA_SAMPLE_FILE.toFile().delete();
+        WORF_SAMPLE_FILE.toFile().delete();
+        TWO_SAMPLERS_SAMPLE_FILE.toFile().delete();
+    }
+}
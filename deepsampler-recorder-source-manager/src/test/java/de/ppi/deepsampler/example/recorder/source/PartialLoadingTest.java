@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * This test shows how a sample file, that is shared by many tests, can be loaded partially using the
+ * {@link SamplerIdFilteringSourceManager}.
+ * <p>
+ * The file <code>sharedSamples.json</code> contains two samples: "loadPerson" and "loadFriend". The sample "loadFriend"
+ * references a type, that doesn't exist. Loading it would fail, so the following tests can only succeed, if
+ * "loadFriend" is skipped while the file is parsed.
+ */
+class PartialLoadingTest {
+
+    public static final Path SHARED_SAMPLE_FILE = Paths.get("./src/test/resources/de/ppi/deepsampler/example/recorder/source/sharedSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    void onlyTheDeclaredSamplesAreLoaded() {
+        // 👉 GIVEN
+        // (1) We declare only one of the two samples that are stored in sharedSamples.json...
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // (2) ... and the SamplerIdFilteringSourceManager loads only this sample. The actual JSON-(de)serialization is
+        // done by JsonSourceManagers, that are built by the shared default builder. Custom serializers would be
+        // registered on a JsonSourceManager.Builder of their own.
+        PersistentSampler.source(new SamplerIdFilteringSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARED_SAMPLE_FILE)).load();
+
+        // 🧪 WHEN
+        final String actualGreeting = greetingService.createGreeting(1);
+
+        // 🔬 THEN
+        assertEquals("Hello Jean-Luc Picard!", actualGreeting);
+    }
+
+    @Test
+    void skippedSamplesAreNotCopied() throws IOException {
+        // 👉 GIVEN
+        final ByteArrayOutputStream filteredSamples = new ByteArrayOutputStream();
+
+        // 🧪 WHEN
+        try (InputStream in = Files.newInputStream(SHARED_SAMPLE_FILE)) {
+            SampleJson.filterSamplerIds(in, filteredSamples, "loadPerson"::equals);
+        }
+
+        // 🔬 THEN
+        final String filteredJson = new String(filteredSamples.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(filteredJson).contains("\"loadPerson\"", "Jean-Luc Picard")
+                .doesNotContain("\"loadFriend\"", "ATypeThatIsUnknownToThisFixture");
+    }
+
+    @Test
+    void theJsonSourceManagerIsReusedAndTheTemporaryFileIsDeleted() {
+        // 👉 GIVEN
+        // (3) The SourceManager builds its JsonSourceManager with the first load.
+        final SamplerIdFilteringSourceManager sourceManager = new SamplerIdFilteringSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARED_SAMPLE_FILE);
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSampler.source(sourceManager).load();
+        final JsonSourceManager jsonSourceManagerOfFirstLoad = sourceManager.getWorkspace().getJsonSourceManager();
+        Sampler.clear();
+
+        // 🧪 WHEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSampler.source(sourceManager).load();
+
+        // 🔬 THEN
+        // (4) The second load reused the JsonSourceManager. The temporary sample file, that has been passed to the
+        // JsonSourceManager, has been deleted after each load.
+        assertSame(jsonSourceManagerOfFirstLoad, sourceManager.getWorkspace().getJsonSourceManager());
+        assertThat(sourceManager.getWorkspace().getFile()).doesNotExist();
+    }
+
+    @AfterEach
+    void clearSamplers() {
+        Sampler.clear();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how sample files are shared by many build agents using a remote sample store and the
+ * {@link RemoteSourceManager}. The remote store is replaced by the {@link LocalSampleStore}.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a sample file and the
+ * subsequent tests can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class RemoteStoreTest {
+
+    public static final Path CACHE_DIRECTORY = Paths.get("./tmp/sampleStoreCache");
+    public static final String SAMPLE_NAME = "RemoteStoreTest";
+
+    private static LocalSampleStore sampleStore;
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void aRecordingIsUploadedToTheStore() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+
+        // 🧪 WHEN
+        PersistentSampler.source(createRemoteSourceManager()).recordSamples();
+
+        // 🔬 THEN
+        // (1) The store contains the sample file, named by its hash, and a reference from the name of the sample
+        // file to the hash.
+        final String hash = new String(sampleStore.getResources().get("refs/" + SAMPLE_NAME), StandardCharsets.UTF_8);
+        assertThat(sampleStore.getResources()).containsKey("objects/" + hash);
+    }
+
+    @Test
+    @Order(1)
+    void aSampleFileIsDownloadedOnlyOnce() {
+        // 👉 GIVEN
+        clearCache();
+        final String objectResource = "objects/" + new String(sampleStore.getResources().get("refs/" + SAMPLE_NAME), StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 2; i++) {
+            PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+            // 🧪 WHEN
+            PersistentSampler.source(createRemoteSourceManager()).load();
+
+            // 🔬 THEN
+            assertEquals("Hello Data!", greetingService.createGreeting(1));
+            Sampler.clear();
+        }
+
+        // (2) The second load has used the local cache.
+        assertThat(sampleStore.getRequestCount("GET", objectResource)).isEqualTo(1);
+    }
+
+    @Test
+    @Order(2)
+    void objectsThatDoNotMatchTheirHashAreNotCached() {
+        // 👉 GIVEN
+        // (3) The store returns an object, whose content doesn't match its hash.
+        final String hash = "0000000000000000000000000000000000000000000000000000000000000000";
+        sampleStore.getResources().put("refs/Broken", hash.getBytes(StandardCharsets.UTF_8));
+        sampleStore.getResources().put("objects/" + hash, "{}".getBytes(StandardCharsets.UTF_8));
+        final RemoteSourceManager remoteSourceManager = new RemoteSourceManager(JsonStreamSourceManager.defaultBuilder(),
+                sampleStore.getUri(), "Broken", CACHE_DIRECTORY);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        assertThatThrownBy(() -> PersistentSampler.source(remoteSourceManager).load())
+
+                // 🔬 THEN
+                // (4) The object is hashed while it is downloaded, so it never reaches the cache. Cached objects can
+                // therefore be loaded without hashing them again.
+                .isInstanceOf(PersistenceException.class)
+                .hasMessageContaining("does not match its hash");
+        assertThat(CACHE_DIRECTORY.resolve(hash)).doesNotExist();
+    }
+
+    @Test
+    @Order(3)
+    void refsThatAreNoHashesAreRejected() {
+        // 👉 GIVEN
+        // (5) A manipulated ref points to a file outside of the cache directory.
+        sampleStore.getResources().put("refs/Manipulated", "../../pom.xml".getBytes(StandardCharsets.UTF_8));
+        final RemoteSourceManager remoteSourceManager = new RemoteSourceManager(JsonStreamSourceManager.defaultBuilder(),
+                sampleStore.getUri(), "Manipulated", CACHE_DIRECTORY);
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        assertThatThrownBy(() -> PersistentSampler.source(remoteSourceManager).load())
+
+                // 🔬 THEN
+                .isInstanceOf(PersistenceException.class)
+                .hasMessageContaining("is not a SHA-256 hash");
+    }
+
+    @Test
+    @Order(4)
+    void aStalledStoreFailsAfterTheReadTimeout() throws IOException {
+        // 👉 GIVEN
+        // (6) The operating system accepts the connection, but the store never answers.
+        try (ServerSocket stalledStore = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final RemoteSourceManager remoteSourceManager = new RemoteSourceManager(JsonStreamSourceManager.defaultBuilder(),
+                    URI.create("http://" + stalledStore.getInetAddress().getHostAddress() + ":" + stalledStore.getLocalPort() + "/store/"),
+                    SAMPLE_NAME, CACHE_DIRECTORY, Duration.ofSeconds(1), Duration.ofMillis(200));
+
+            PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+            // 🧪 WHEN
+            assertThatThrownBy(() -> PersistentSampler.source(remoteSourceManager).load())
+
+                    // 🔬 THEN
+                    .isInstanceOf(PersistenceException.class)
+                    .hasRootCauseInstanceOf(SocketTimeoutException.class);
+        }
+    }
+
+    private RemoteSourceManager createRemoteSourceManager() {
+        return new RemoteSourceManager(JsonStreamSourceManager.defaultBuilder(), sampleStore.getUri(), SAMPLE_NAME, CACHE_DIRECTORY);
+    }
+
+    @AfterEach
+    void clearSamplers() {
+        Sampler.clear();
+    }
+
+    @BeforeAll
+    static void startSampleStore() throws IOException {
+        clearCache();
+        sampleStore = new LocalSampleStore();
+    }
+
+    @AfterAll
+    static void stopSampleStore() {
+        sampleStore.close();
+    }
+
+    /**
+     * 🧽 We delete the cached sample files, so that they are downloaded from the store.
+     */
+    private static void clearCache() {
+        final File[] cachedFiles = CACHE_DIRECTORY.toFile().listFiles();
+
+        if (cachedFiles != null) {
+            for (final File cachedFile : cachedFiles) {
+                cachedFile.delete();
+            }
+        }
+    }
+}
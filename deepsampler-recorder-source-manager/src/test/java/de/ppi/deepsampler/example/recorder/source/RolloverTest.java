@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import de.ppi.deepsampler.persistence.json.JsonSourceManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how a long recording is split into several segments by the {@link RollingSourceManager}.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record the segments and
+ * subsequent tests can load them.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class RolloverTest {
+
+    public static final Path SEGMENT_DIRECTORY = Paths.get("./tmp/rollingSamples");
+    public static final Path MANIFEST_FILE = SEGMENT_DIRECTORY.resolve("soak.manifest");
+
+    private static final long MAX_SEGMENT_BYTES = 1024 * 1024;
+    private static final int MAX_CALLS_PER_SEGMENT = 2;
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void aLongRecordingIsSplitIntoSegments() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (1) We record five calls, but each segment may only contain two of them.
+        personDao.setName("Data");
+        for (int i = 1; i <= 5; i++) {
+            greetingService.createGreeting(i);
+        }
+
+        final RollingSourceManager rollingSourceManager = new RollingSourceManager(JsonStreamSourceManager.defaultBuilder(), MANIFEST_FILE,
+                MAX_SEGMENT_BYTES, MAX_CALLS_PER_SEGMENT);
+        PersistentSampler.source(rollingSourceManager).recordSamples();
+
+        // 🔬 THEN
+        // (2) The segments are named after the manifest and the id of the recording.
+        final List<Path> segmentFiles = rollingSourceManager.getSegmentFiles();
+        final String recordingId = segmentFiles.get(0).getFileName().toString().replaceAll("^soak-(.*)-00001\\.json$", "$1");
+        assertThat(segmentFiles).containsExactly(
+                SEGMENT_DIRECTORY.toAbsolutePath().resolve("soak-" + recordingId + "-00001.json"),
+                SEGMENT_DIRECTORY.toAbsolutePath().resolve("soak-" + recordingId + "-00002.json"),
+                SEGMENT_DIRECTORY.toAbsolutePath().resolve("soak-" + recordingId + "-00003.json"));
+        assertThat(segmentFiles).allMatch(segmentFile -> segmentFile.toFile().exists());
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void eachSegmentCanBeLoadedOnItsOwn() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        final RollingSourceManager rollingSourceManager = new RollingSourceManager(JsonStreamSourceManager.defaultBuilder(), MANIFEST_FILE,
+                MAX_SEGMENT_BYTES, MAX_CALLS_PER_SEGMENT);
+
+        // 🧪 WHEN
+        // (3) The last segment is an ordinary sample file, that contains the fifth call.
+        PersistentSampler.source(JsonSourceManager.builder().buildWithFile(rollingSourceManager.getSegmentFile(3))).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(5));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(2)
+    void allSegmentsAreLoadedByTheManifest() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (4) All segments, that contain "loadPerson", are loaded concurrently.
+        PersistentSampler.source(new RollingSourceManager(JsonStreamSourceManager.defaultBuilder(), MANIFEST_FILE,
+                MAX_SEGMENT_BYTES, MAX_CALLS_PER_SEGMENT)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+        assertEquals("Hello Data!", greetingService.createGreeting(5));
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(3)
+    void aNewRecordingReplacesAllSegments() {
+        // 👉 GIVEN
+        final RollingSourceManager rollingSourceManager = new RollingSourceManager(JsonStreamSourceManager.defaultBuilder(), MANIFEST_FILE,
+                MAX_SEGMENT_BYTES, MAX_CALLS_PER_SEGMENT);
+        final List<Path> previousSegmentFiles = rollingSourceManager.getSegmentFiles();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+
+        // 🧪 WHEN
+        PersistentSampler.source(rollingSourceManager).recordSamples();
+
+        // 🔬 THEN
+        // (5) The manifest has been replaced after the new segment had been written. Afterwards, the segments of the
+        // previous recording have been deleted.
+        assertThat(rollingSourceManager.getSegmentFiles()).hasSize(1).doesNotContainAnyElementsOf(previousSegmentFiles);
+        assertThat(rollingSourceManager.getSegmentFile(1)).exists();
+        assertThat(previousSegmentFiles).noneMatch(segmentFile -> segmentFile.toFile().exists());
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(4)
+    void loadingWithoutDeclaredSamplersFails() {
+        // 👉 GIVEN
+        // (6) No sampler has been declared, so none of the segments would be loaded.
+        final RollingSourceManager rollingSourceManager = new RollingSourceManager(JsonStreamSourceManager.defaultBuilder(), MANIFEST_FILE,
+                MAX_SEGMENT_BYTES, MAX_CALLS_PER_SEGMENT);
+
+        // 🧪 WHEN
+        assertThatThrownBy(() -> PersistentSampler.source(rollingSourceManager).load())
+
+                // 🔬 THEN
+                .isInstanceOf(PersistenceException.class)
+                .hasMessageContaining("No samplers have been declared");
+    }
+
+    /**
+     * 🧽 We delete old segments, before any tests run, in case some old segments from previous test runs still exist.
+     */
+    @BeforeAll
+    static void clearSegmentDirectory() {
+        final File[] segments = SEGMENT_DIRECTORY.toFile().listFiles();
+
+        if (segments != null) {
+            for (final File segment : segments) {
+                segment.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.nio.file.Paths;
+
+/**
+ * The JUnit 5 extension behind {@link UseSampleContainer}. It passes an {@link IndexedContainerSourceManager} to each
+ * test method, that reads and writes the section of the test method.
+ * <p>
+ * The section is named after the test class and the test method, e.g. <code>com.example.MyTest#myTest</code>. So each
+ * test method loads only its own samples, even if many test classes share one container file. The name doesn't depend
+ * on the parameter types or on the JUnit engine, so the samples are still found, if a parameter is added or the tests
+ * are run by another engine. All invocations of a parameterized test share the section of their test method. Renaming
+ * a test class or a test method leaves its samples behind in the old section. All test classes, that use the same
+ * container file, share one {@link IndexedSampleContainer}.
+ * <p>
+ * The extension is part of the test sources, so this module doesn't depend on JUnit at runtime. A project, that wants
+ * to use it, copies it to its own test sources together with {@link UseSampleContainer}.
+ */
+public class SampleContainerExtension implements ParameterResolver {
+
+    @Override
+    public boolean supportsParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == IndexedContainerSourceManager.class
+                && extensionContext.getTestMethod().isPresent();
+    }
+
+    @Override
+    public Object resolveParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+        final UseSampleContainer useSampleContainer = extensionContext.getRequiredTestClass().getAnnotation(UseSampleContainer.class);
+
+        if (useSampleContainer == null) {
+            throw new ParameterResolutionException("The test class " + extensionContext.getRequiredTestClass().getName()
+                    + " is not annotated with @" + UseSampleContainer.class.getSimpleName() + ".");
+        }
+
+        final IndexedSampleContainer container = IndexedSampleContainer.forFile(Paths.get(useSampleContainer.value()));
+
+        return new IndexedContainerSourceManager(JsonStreamSourceManager.defaultBuilder(), container, getSection(extensionContext));
+    }
+
+    /**
+     * @param extensionContext The context of the current test method
+     * @return The name of the section of the current test method
+     */
+    private static String getSection(final ExtensionContext extensionContext) {
+        return extensionContext.getRequiredTestClass().getName() + "#" + extensionContext.getRequiredTestMethod().getName();
+    }
+}
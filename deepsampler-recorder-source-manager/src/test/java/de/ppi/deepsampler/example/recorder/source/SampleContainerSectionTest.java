@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how all test methods of a test class can store their samples in one container file using
+ * {@link UseSampleContainer}. Each test method reads and writes only its own section of the container.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that the last test can inspect the sections of the
+ * preceding tests.
+ */
+@UseSampleContainer("./tmp/sectionedSamples.dsc")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SampleContainerSectionTest {
+
+    public static final Path CONTAINER_FILE = Paths.get("./tmp/sectionedSamples.dsc");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void dataIsRecordedInTheFirstSection(final IndexedContainerSourceManager sourceManager) {
+        recordAndLoad(sourceManager, "Data");
+    }
+
+    @Test
+    @Order(1)
+    void worfIsRecordedInTheSecondSection(final IndexedContainerSourceManager sourceManager) {
+        // Both tests record the same sampler with the same parameter. Since the sections are separated, this test
+        // doesn't see the sample of the first test.
+        recordAndLoad(sourceManager, "Worf");
+    }
+
+    @Test
+    @Order(2)
+    void eachTestMethodHasItsOwnSection() {
+        final IndexedSampleContainer container = new IndexedSampleContainer(CONTAINER_FILE);
+
+        // (2) The sections are named after the test class and the test methods.
+        assertThat(container.getSections()).containsExactlyInAnyOrder(
+                SampleContainerSectionTest.class.getName() + "#dataIsRecordedInTheFirstSection",
+                SampleContainerSectionTest.class.getName() + "#worfIsRecordedInTheSecondSection");
+
+        for (final String section : container.getSections()) {
+            assertThat(container.getSamplerIds(section)).containsExactly("loadPerson");
+        }
+
+        assertThat(container.getSamplerIds()).isEmpty();
+    }
+
+    private void recordAndLoad(final IndexedContainerSourceManager sourceManager, final String name) {
+        // 👉 GIVEN
+        // (1) The SourceManager has been passed to the test method by the SampleContainerExtension. It writes the
+        // section of the current test method.
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName(name);
+        greetingService.createGreeting(1);
+        PersistentSampler.source(sourceManager).recordSamples();
+        Sampler.clear();
+
+        // 🧪 WHEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSampler.source(sourceManager).load();
+
+        // 🔬 THEN
+        assertEquals("Hello " + name + "!", greetingService.createGreeting(1));
+    }
+
+    @AfterEach
+    void clearSamplers() {
+        Sampler.clear();
+    }
+
+    /**
+     * 🧽 We delete old containers, before any tests run, in case some old containers from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearContainerFile() {
+        CONTAINER_FILE.toFile().delete();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * This test shows how sample files on the classpath are resolved using the {@link SampleResourceIndex}.
+ * <p>
+ * During the build, the index is written to target/test-classes by the exec-maven-plugin. This test writes its own
+ * index to a temporary classpath, so it doesn't depend on the build.
+ */
+class SampleResourceIndexTest {
+
+    public static final String SHARED_SAMPLES_RESOURCE = "de/ppi/deepsampler/example/recorder/source/sharedSamples.json";
+    public static final Path INDEXED_CLASSPATH_ROOT = Paths.get("./tmp/indexedClasspath");
+    public static final Path CHANGED_CLASSPATH_ROOT = Paths.get("./tmp/changedClasspath");
+
+    @Test
+    void indexedSampleFilesAreResolvedWithoutSearchingTheClasspath() throws IOException {
+        try (URLClassLoader classLoader = newClassLoader(INDEXED_CLASSPATH_ROOT)) {
+            // 🧪 WHEN
+            final SampleResourceIndex index = SampleResourceIndex.load(classLoader);
+
+            // 🔬 THEN
+            // (1) The sample file and its snapshot have been indexed together with their sizes.
+            assertThat(index.contains(SHARED_SAMPLES_RESOURCE)).isTrue();
+            assertThat(index.contains(SHARED_SAMPLES_RESOURCE + SampleSnapshotCompiler.SNAPSHOT_SUFFIX)).isTrue();
+            assertThat(index.getSize(SHARED_SAMPLES_RESOURCE)).isEqualTo(Files.size(PartialLoadingTest.SHARED_SAMPLE_FILE));
+            assertThat(index.getResource(SHARED_SAMPLES_RESOURCE)).isEqualTo(classLoader.getResource(SHARED_SAMPLES_RESOURCE));
+            assertThat(index.isUpToDate(SHARED_SAMPLES_RESOURCE)).isTrue();
+        }
+    }
+
+    @Test
+    void sampleFilesThatHaveBeenChangedAfterIndexingAreReadAsTheyAre() throws IOException {
+        // 👉 GIVEN
+        // (2) A sample file is indexed and changed afterwards, e.g. by an IDE, that copies resources without running the
+        // exec-maven-plugin.
+        final Path sampleFile = CHANGED_CLASSPATH_ROOT.resolve("changedSamples.json");
+        Files.createDirectories(CHANGED_CLASSPATH_ROOT);
+        Files.write(sampleFile, "{\"name\":\"Jean-Luc Picard\"}".getBytes(StandardCharsets.UTF_8));
+        SampleResourceIndexer.writeIndex(CHANGED_CLASSPATH_ROOT);
+        Files.write(sampleFile, "{\"name\":\"Beverly Crusher and Wesley\"}".getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = newClassLoader(CHANGED_CLASSPATH_ROOT)) {
+            final SampleResourceIndex index = SampleResourceIndex.load(classLoader);
+
+            // 🧪 WHEN
+            final byte[] content;
+
+            try (InputStream in = index.openStream("changedSamples.json")) {
+                content = readAll(in);
+            }
+
+            // 🔬 THEN
+            // (3) By default, the changed sample file is read without calculating its hash. Only its size reveals, that it
+            // has been changed.
+            assertThat(content).isEqualTo(Files.readAllBytes(sampleFile));
+            assertThat(index.isUpToDate("changedSamples.json")).isFalse();
+        }
+    }
+
+    @Test
+    void sampleFilesThatHaveBeenChangedAfterIndexingAreDetectedByTheirHash() throws IOException {
+        // 👉 GIVEN
+        // (4) This time the size stays the same, so only the hash reveals the change.
+        final Path sampleFile = CHANGED_CLASSPATH_ROOT.resolve("sameSizeSamples.json");
+        Files.createDirectories(CHANGED_CLASSPATH_ROOT);
+        Files.write(sampleFile, "{\"name\":\"Jean-Luc Picard\"}".getBytes(StandardCharsets.UTF_8));
+        SampleResourceIndexer.writeIndex(CHANGED_CLASSPATH_ROOT);
+        Files.write(sampleFile, "{\"name\":\"Beverly Crusher\"}".getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = newClassLoader(CHANGED_CLASSPATH_ROOT)) {
+            final SampleResourceIndex index = SampleResourceIndex.load(classLoader).withHashVerification();
+
+            // 🧪 WHEN
+            // (5) The hash verification is switched on, so the size and the hash are compared, when the sample file is
+            // closed.
+            assertThatThrownBy(() -> {
+                try (InputStream in = index.openStream("sameSizeSamples.json")) {
+                    in.read();
+                }
+            })
+
+                    // 🔬 THEN
+                    .isInstanceOf(PersistenceException.class)
+                    .hasMessageContaining("sameSizeSamples.json");
+        }
+    }
+
+    @Test
+    void unchangedSampleFilesAreVerifiedWhileTheyAreRead() throws IOException {
+        try (URLClassLoader classLoader = newClassLoader(INDEXED_CLASSPATH_ROOT)) {
+            // 🧪 WHEN
+            final byte[] content;
+
+            try (InputStream in = SampleResourceIndex.load(classLoader).withHashVerification().openStream(SHARED_SAMPLES_RESOURCE)) {
+                content = readAll(in);
+            }
+
+            // 🔬 THEN
+            assertThat(content).isEqualTo(Files.readAllBytes(PartialLoadingTest.SHARED_SAMPLE_FILE));
+        }
+    }
+
+    @Test
+    void missingSampleFilesAreReportedAtOnce() throws IOException {
+        // 👉 GIVEN
+        // (6) A sample file, that has been added after the index has been written, is not indexed, but it is found by
+        // the class loader, so it is not missing.
+        Files.write(INDEXED_CLASSPATH_ROOT.resolve("notIndexedSamples.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = newClassLoader(INDEXED_CLASSPATH_ROOT)) {
+            final SampleResourceIndex index = SampleResourceIndex.load(classLoader);
+
+            // 🧪 WHEN
+            // (7) This check can be done before any test runs, e.g. in an @BeforeAll method of a test suite.
+            assertThatThrownBy(() -> index.checkResourcesExist(Arrays.asList(SHARED_SAMPLES_RESOURCE, "notIndexedSamples.json",
+                    "missing/first.json", "missing/second.json")))
+
+                    // 🔬 THEN
+                    .isInstanceOf(PersistenceException.class)
+                    .hasMessageContaining("missing/first.json")
+                    .hasMessageContaining("missing/second.json")
+                    .satisfies(error -> assertThat(error.getMessage()).doesNotContain("notIndexedSamples.json"));
+        }
+    }
+
+    /**
+     * The class loader has no parent, so it finds only the resources of the temporary classpath.
+     */
+    private static URLClassLoader newClassLoader(final Path classPathRoot) throws IOException {
+        return new URLClassLoader(new URL[]{classPathRoot.toUri().toURL()}, null);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int length;
+
+        while ((length = in.read(buffer)) > 0) {
+            out.write(buffer, 0, length);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * 🧽 The temporary classpath is written from scratch, before any tests run. It contains the shared sample file,
+     * its snapshot and their index, just like target/test-classes after the build.
+     */
+    @BeforeAll
+    static void writeIndexedClasspath() throws IOException {
+        final Path sampleFile = INDEXED_CLASSPATH_ROOT.resolve(SHARED_SAMPLES_RESOURCE);
+        Files.createDirectories(sampleFile.getParent());
+        Files.deleteIfExists(INDEXED_CLASSPATH_ROOT.resolve("notIndexedSamples.json"));
+        Files.copy(PartialLoadingTest.SHARED_SAMPLE_FILE, sampleFile, StandardCopyOption.REPLACE_EXISTING);
+
+        SampleSnapshotCompiler.compile(sampleFile);
+        SampleResourceIndexer.writeIndex(INDEXED_CLASSPATH_ROOT);
+    }
+}
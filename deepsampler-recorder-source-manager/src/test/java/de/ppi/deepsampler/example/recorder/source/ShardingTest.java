@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.examples.helloworld.PersonId;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecorded;
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the samples of each sampler are stored in a separate shard using the {@link ShardedSourceManager}.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record the shards and a
+ * subsequent test can load them.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ShardingTest {
+
+    public static final Path SHARD_DIRECTORY = Paths.get("./tmp/shardedSamples");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private PersonDao personDao;
+
+    @Inject
+    private GreetingService greetingService;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void eachSamplerIsWrittenToItsOwnShard() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(ShardingTest::personIdMatches))).hasId("loadPersonById");
+
+        // 🧪 WHEN
+        personDao.setName("Data");
+        personDao.loadPerson(1);
+        personDao.loadPerson(new PersonId(1));
+
+        final ShardedSourceManager shardedSourceManager = new ShardedSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARD_DIRECTORY);
+        PersistentSampler.source(shardedSourceManager).recordSamples();
+
+        // 🔬 THEN
+        // (1) The shards are named after the recording and their samplers.
+        assertThat(shardedSourceManager.getShardFile("loadPerson")).exists();
+        assertThat(shardedSourceManager.getShardFile("loadPersonById")).exists();
+        assertThat(shardedSourceManager.getShardFile("loadPerson").getFileName().toString()).endsWith("-loadPerson.json");
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void allShardsAreLoadedAsOneSampleSet() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecorded(ShardingTest::personIdMatches))).hasId("loadPersonById");
+
+        // 🧪 WHEN
+        PersistentSampler.source(new ShardedSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARD_DIRECTORY)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(1));
+        assertEquals("Data", personDao.loadPerson(new PersonId(1)).getName());
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(2)
+    void shardsThatAreNotPartOfTheNewRecordingAreDeleted() throws IOException {
+        // 👉 GIVEN
+        // (2) Only the shards, that are listed in the manifest, belong to the recording. Other JSON-files in the
+        // directory are neither loaded nor deleted.
+        final Path unrelatedFile = SHARD_DIRECTORY.resolve("unrelated.json");
+        Files.write(unrelatedFile, "{}".getBytes(StandardCharsets.UTF_8));
+        final List<Path> previousShardFiles = new ShardedSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARD_DIRECTORY).getShardFiles();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        personDao.setName("Data");
+        personDao.loadPerson(1);
+
+        // 🧪 WHEN
+        final ShardedSourceManager shardedSourceManager = new ShardedSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARD_DIRECTORY);
+        PersistentSampler.source(shardedSourceManager).recordSamples();
+
+        // 🔬 THEN
+        // (3) The new recording has written new shards. The shards of the previous recording, including the shard of
+        // "loadPersonById", are deleted after the new manifest has been written.
+        assertThat(shardedSourceManager.getShardFiles()).containsExactly(shardedSourceManager.getShardFile("loadPerson"))
+                .doesNotContainAnyElementsOf(previousShardFiles);
+        assertThat(shardedSourceManager.getShardFile("loadPersonById")).isNull();
+        assertThat(previousShardFiles).hasSize(2).allMatch(shardFile -> !Files.exists(shardFile));
+        assertThat(unrelatedFile).exists();
+
+        Sampler.clear();
+    }
+
+    private static boolean personIdMatches(final PersonId left, final PersonId right) {
+        return left.getId() == right.getId();
+    }
+
+    /**
+     * 🧽 We delete old shards, before any tests run, in case some old shards from previous test runs still exist.
+     */
+    @BeforeAll
+    static void clearShardDirectory() {
+        final File[] shards = SHARD_DIRECTORY.toFile().listFiles();
+
+        if (shards != null) {
+            for (final File shard : shards) {
+                shard.delete();
+            }
+        }
+    }
+}
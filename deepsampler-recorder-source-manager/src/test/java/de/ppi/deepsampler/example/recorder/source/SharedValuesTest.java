@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the {@link SharedValuesSourceManager} writes identical return values only once per sample file.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a sample file and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SharedValuesTest {
+
+    public static final Path SHARED_SAMPLE_FILE = Paths.get("./tmp/sharedValueSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void identicalReturnValuesAreWrittenOnlyOnce() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (1) We record three calls, that return identical Persons.
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+        greetingService.createGreeting(2);
+        greetingService.createGreeting(3);
+
+        PersistentSampler.source(new SharedValuesSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARED_SAMPLE_FILE)).recordSamples();
+
+        // 🔬 THEN
+        // (2) The Person is written once to the value table. The method calls refer to it by its hash.
+        assertThat(SHARED_SAMPLE_FILE).content()
+                .containsOnlyOnce("\"Data\"")
+                .contains("\"" + SharedValues.RETURN_VALUE_REF + "\"");
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void aSampleFileWithSharedValuesIsLoaded() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(new SharedValuesSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARED_SAMPLE_FILE)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(2));
+
+        Sampler.clear();
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        SHARED_SAMPLE_FILE.toFile().delete();
+    }
+}
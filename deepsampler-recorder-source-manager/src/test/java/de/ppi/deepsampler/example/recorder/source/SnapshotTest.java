@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This test shows how a sample file is loaded from a snapshot, that has been compiled by the
+ * {@link SampleSnapshotCompiler} during the build.
+ * <p>
+ * The snapshot of <code>sharedSamples.json</code> is written to target/test-classes by the exec-maven-plugin in the
+ * phase process-test-resources. If the test is started by an IDE, that doesn't run the exec-maven-plugin, the snapshot
+ * is compiled before the test runs.
+ */
+class SnapshotTest {
+
+    public static final String SHARED_SAMPLES_RESOURCE = "de/ppi/deepsampler/example/recorder/source/sharedSamples.json";
+    public static final Path SHARED_SAMPLE_FILE = Paths.get("./src/test/resources/" + SHARED_SAMPLES_RESOURCE);
+    public static final Path COMPILATION_DIRECTORY = Paths.get("./tmp/snapshotCompilation");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    /**
+     * Compiles the snapshot, if it hasn't been compiled by Maven.
+     */
+    @BeforeAll
+    static void compileSnapshot() throws URISyntaxException {
+        final URL sampleFile = Thread.currentThread().getContextClassLoader().getResource(SHARED_SAMPLES_RESOURCE);
+        final Path sampleFilePath = Paths.get(sampleFile.toURI());
+
+        if (!Files.exists(SampleSnapshotCompiler.getSnapshotFile(sampleFilePath))) {
+            SampleSnapshotCompiler.compile(sampleFilePath);
+        }
+    }
+
+    @Test
+    void aSnapshotIsLoadedFromTheClasspath() {
+        // 👉 GIVEN
+        final SnapshotSourceManager snapshotSourceManager = new SnapshotSourceManager(JsonStreamSourceManager.defaultBuilder(), SHARED_SAMPLES_RESOURCE);
+        assertThat(snapshotSourceManager.findSnapshotFile()).isNotNull();
+
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (1) Only the entries of "loadPerson" are read from the snapshot.
+        PersistentSampler.source(snapshotSourceManager).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Jean-Luc Picard!", greetingService.createGreeting(1));
+    }
+
+    @Test
+    void jsonFilesThatAreNoSampleFilesAreSkipped() throws IOException {
+        // 👉 GIVEN
+        // (2) Test resources may contain JSON-files, that are used for other purposes.
+        Files.createDirectories(COMPILATION_DIRECTORY);
+        Files.copy(SHARED_SAMPLE_FILE, COMPILATION_DIRECTORY.resolve("sharedSamples.json"), StandardCopyOption.REPLACE_EXISTING);
+        Files.write(COMPILATION_DIRECTORY.resolve("configuration.json"), "{ \"name\" : \"Data\" }".getBytes(StandardCharsets.UTF_8));
+
+        // 🧪 WHEN
+        final int compiledSnapshots = SampleSnapshotCompiler.compileAll(COMPILATION_DIRECTORY);
+
+        // 🔬 THEN
+        assertThat(compiledSnapshots).isEqualTo(1);
+        assertThat(SampleSnapshotCompiler.getSnapshotFile(COMPILATION_DIRECTORY.resolve("configuration.json"))).doesNotExist();
+    }
+
+    @Test
+    void brokenSampleFilesFailTheCompilation() throws IOException {
+        // 👉 GIVEN
+        // (3) The sample file has been truncated, e.g. by an interrupted copy.
+        Files.createDirectories(COMPILATION_DIRECTORY);
+        final Path brokenSampleFile = COMPILATION_DIRECTORY.resolve("brokenSamples.json");
+        Files.write(brokenSampleFile, "{ \"sampleMethodToSampleMap\" : { \"loadPerson\" : { \"callMap\" : [".getBytes(StandardCharsets.UTF_8));
+
+        // 🧪 WHEN
+        final PersistenceException error = assertThrows(PersistenceException.class, () -> SampleSnapshotCompiler.compileAll(COMPILATION_DIRECTORY));
+
+        // 🔬 THEN
+        // (4) The compilation fails, so the build fails in the phase process-test-resources, and no snapshot is left
+        // behind.
+        assertThat(error).hasMessageContaining("brokenSamples.json");
+        assertThat(SampleSnapshotCompiler.getSnapshotFile(brokenSampleFile)).doesNotExist();
+    }
+
+    @AfterEach
+    void clearSamplers() throws IOException {
+        Sampler.clear();
+
+        if (Files.exists(COMPILATION_DIRECTORY)) {
+            try (Stream<Path> files = Files.list(COMPILATION_DIRECTORY)) {
+                for (final Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
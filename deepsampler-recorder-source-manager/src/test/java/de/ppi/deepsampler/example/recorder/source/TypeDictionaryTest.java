@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.GreetingService;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.persistence.api.PersistentSampler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how the {@link TypeDictionarySourceManager} writes each type name only once per sample file.
+ * <p>
+ * Notice: the execution order of the tests is fixed, so that a preceding test can record a sample file and a
+ * subsequent test can load it.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TypeDictionaryTest {
+
+    public static final Path COMPACT_SAMPLE_FILE = Paths.get("./tmp/compactSamples.json");
+
+    private final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+
+    @Inject
+    private GreetingService greetingService;
+
+    @Inject
+    private PersonDao personDao;
+
+    @BeforeEach
+    void injectWithGuice() {
+        Guice.createInjector(new RecorderExampleGuiceModule()).injectMembers(this);
+    }
+
+    @Test
+    @Order(0)
+    void typeNamesAreWrittenOnlyOnce() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        // (1) We record three Persons. Each of them is written as a DefaultPersistentBean.
+        personDao.setName("Data");
+        greetingService.createGreeting(1);
+        greetingService.createGreeting(2);
+        greetingService.createGreeting(3);
+
+        PersistentSampler.source(new TypeDictionarySourceManager(JsonStreamSourceManager.defaultBuilder(), COMPACT_SAMPLE_FILE)).recordSamples();
+
+        // 🔬 THEN
+        // (2) The type name is written once to the type table. The Persons refer to it by its index.
+        assertThat(COMPACT_SAMPLE_FILE).content()
+                .containsOnlyOnce("de.ppi.deepsampler.persistence.bean.DefaultPersistentBean")
+                .contains("\"@type\" : \"#0\"");
+
+        Sampler.clear();
+    }
+
+    @Test
+    @Order(1)
+    void aCompactSampleFileIsLoaded() {
+        // 👉 GIVEN
+        PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+
+        // 🧪 WHEN
+        PersistentSampler.source(new TypeDictionarySourceManager(JsonStreamSourceManager.defaultBuilder(), COMPACT_SAMPLE_FILE)).load();
+
+        // 🔬 THEN
+        assertEquals("Hello Data!", greetingService.createGreeting(2));
+
+        Sampler.clear();
+    }
+
+    @Test
+    void typeNamesInWrapperArraysAreReplaced() throws IOException {
+        // 👉 GIVEN
+        // (3) Custom JsonSerializers write type names as the first element of an array.
+        final byte[] sampleJson = ("{\"id\":\"1\",\"sampleMethodToSampleMap\":{\"loadPerson\":{\"callMap\":[{"
+                + "\"parameter\":{\"args\":[1]},"
+                + "\"returnValue\":{\"values\":{\"0$birthday\":[\"java.time.LocalDateTime\",\"2335047.0000\"]}}}]}}}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        // 🧪 WHEN
+        final Map<String, Integer> typeTable = TypeDictionary.collectTypeNames(new ByteArrayInputStream(sampleJson));
+        final ByteArrayOutputStream compactJson = new ByteArrayOutputStream();
+        TypeDictionary.compact(new ByteArrayInputStream(sampleJson), compactJson, typeTable);
+
+        final ByteArrayOutputStream expandedJson = new ByteArrayOutputStream();
+        TypeDictionary.expand(new ByteArrayInputStream(compactJson.toByteArray()), expandedJson);
+
+        // 🔬 THEN
+        assertThat(typeTable).containsOnlyKeys("java.time.LocalDateTime");
+        assertThat(compactJson.toString("UTF-8")).contains("\"0$birthday\" : [ \"#0\", \"2335047.0000\" ]");
+        assertThat(expandedJson.toString("UTF-8")).contains("\"0$birthday\" : [ \"java.time.LocalDateTime\", \"2335047.0000\" ]");
+    }
+
+    @Test
+    void sampleFilesInTheDefaultLayoutAreNotExpanded() throws IOException {
+        // 👉 GIVEN
+        // (4) A sample file without a type table, that contains a string in a type position, that looks like a
+        // reference into a type table.
+        final String sampleJson = "{\"id\":\"1\",\"sampleMethodToSampleMap\":{\"loadNames\":{\"callMap\":[{"
+                + "\"parameter\":{\"args\":[1]},"
+                + "\"returnValue\":[\"#1\",\"##2\"]}]}}}";
+
+        // 🧪 WHEN
+        final ByteArrayOutputStream expandedJson = new ByteArrayOutputStream();
+        TypeDictionary.expand(new ByteArrayInputStream(sampleJson.getBytes(StandardCharsets.UTF_8)), expandedJson);
+
+        // 🔬 THEN
+        // (5) The strings are copied unchanged, because only sample files, that start with a type table, are expanded.
+        assertThat(expandedJson.toString("UTF-8")).contains("\"returnValue\" : [ \"#1\", \"##2\" ]");
+    }
+
+    /**
+     * 🧽 We delete old sample files, before any tests run, in case some old sample files from previous test runs
+     * still exist.
+     */
+    @BeforeAll
+    static void clearSamplerFiles() {
+        COMPACT_SAMPLE_FILE.toFile().delete();
+    }
+}
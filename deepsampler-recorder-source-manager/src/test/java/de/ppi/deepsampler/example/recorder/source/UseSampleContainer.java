@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.recorder.source;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stores the samples of all test methods of a test class in one {@link IndexedSampleContainer}, instead of one sample
+ * file per test method. Each test method has its own section in the container.
+ * <p>
+ * Test methods receive an {@link IndexedContainerSourceManager} for their section as parameter:
+ * <pre>
+ * &#64;UseSampleContainer("./tmp/samples/MyTest.dsc")
+ * class MyTest {
+ *     &#64;Test
+ *     void myTest(IndexedContainerSourceManager sourceManager) {
+ *         PersistentSampler.source(sourceManager).load();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * The annotation alone doesn't load or save samples. Loading and saving at the right moment is done by DeepSampler's
+ * own JUnit extension, which only knows sample files, so the test method passes the {@link IndexedContainerSourceManager}
+ * to {@link de.ppi.deepsampler.persistence.api.PersistentSampler} itself.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SampleContainerExtension.class)
+public @interface UseSampleContainer {
+
+    /**
+     * @return The path of the container file
+     */
+    String value();
+}
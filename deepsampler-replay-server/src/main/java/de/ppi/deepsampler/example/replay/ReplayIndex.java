@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.core.model.SampleDefinition;
+import de.ppi.deepsampler.core.model.SampleRepository;
+import de.ppi.deepsampler.example.recorder.source.SampleJson;
+import de.ppi.deepsampler.example.recorder.source.SampleMetrics;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory index of recorded return values, that is used by the {@link ReplayServer}. The index maps the id of a
+ * sampler and the recorded parameters to the return value, that has been recorded for these parameters.
+ * <p>
+ * The return values are kept in the persistent form, in which they have been written to the sample file, so the
+ * {@link ReplayServer} can send them without converting them back to objects.
+ * <p>
+ * Parameters are looked up by their JSON: the recorded parameters and the requested parameters must be equal
+ * according to {@link JsonNode#equals(Object)}, so neither the formatting nor the order of the fields of objects
+ * matter. The matchers, that are used by tests, e.g. a
+ * custom matcher like <code>anyRecorded(personIdMatches)</code>, are not honoured. If the same parameters have been
+ * recorded more than once for a sampler, the return value of the last method call in the sample file is replayed.
+ * <p>
+ * The index is immutable, so it can be read by many threads without locking.
+ */
+public class ReplayIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplayIndex.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String ARGS = "args";
+    private static final String RETURN_VALUE = "returnValue";
+
+    private final Map<String, Map<JsonNode, byte[]>> returnValues;
+
+    private ReplayIndex(final Map<String, Map<JsonNode, byte[]>> returnValues) {
+        this.returnValues = returnValues;
+    }
+
+    /**
+     * Loads the samples of all samplers, that are defined by samplerFixture. This way, a {@link SamplerFixture}, that
+     * is used by tests, also defines which samples are served by a {@link ReplayServer}.
+     *
+     * @param sampleFile     The sample file in JSON-format
+     * @param samplerFixture Defines the samplers, whose samples are loaded
+     * @return The loaded {@link ReplayIndex}
+     */
+    public static ReplayIndex load(final Path sampleFile, final SamplerFixture samplerFixture) {
+        return load(sampleFile, getDeclaredSamplerIds(samplerFixture));
+    }
+
+    /**
+     * The bytes and method calls, that are loaded, and the time that is needed to load them, are reported to
+     * {@link SampleMetrics#getDefault()}.
+     *
+     * @param sampleFile The sample file in JSON-format
+     * @param samplerIds The ids of the samplers, whose samples are loaded. All other samplers are skipped.
+     * @return The loaded {@link ReplayIndex}
+     */
+    public static ReplayIndex load(final Path sampleFile, final Set<String> samplerIds) {
+        final long startNanos = System.nanoTime();
+
+        final ReplayIndex replayIndex;
+
+        try (InputStream in = Files.newInputStream(sampleFile)) {
+            replayIndex = load(in, samplerIds);
+        } catch (IOException e) {
+            throw new PersistenceException("The sample file " + sampleFile + " could not be read.", e);
+        }
+
+        recordLoad(sampleFile, replayIndex, System.nanoTime() - startNanos);
+
+        return replayIndex;
+    }
+
+    /**
+     * The whole sample file has been read, so its size is reported. Metrics must never fail a load, that has
+     * succeeded, so errors are logged and ignored.
+     */
+    private static void recordLoad(final Path sampleFile, final ReplayIndex replayIndex, final long latencyNanos) {
+        try {
+            SampleMetrics.getDefault().recordLoad(sampleFile.toAbsolutePath().normalize().toString(), Files.size(sampleFile),
+                    replayIndex.size(), latencyNanos);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "The load of " + sampleFile + " could not be measured.", e);
+        }
+    }
+
+    /**
+     * @param sampleJson A sample file in JSON-format
+     * @param samplerIds The ids of the samplers, whose samples are loaded. All other samplers are skipped.
+     * @return The loaded {@link ReplayIndex}
+     * @throws IOException if sampleJson cannot be read
+     */
+    public static ReplayIndex load(final InputStream sampleJson, final Set<String> samplerIds) throws IOException {
+        final Map<String, Map<JsonNode, byte[]>> returnValues = new HashMap<>();
+
+        SampleJson.readCalls(sampleJson, (samplerId, call) -> {
+            if (samplerIds.contains(samplerId)) {
+                final JsonNode args = call.path(SampleJson.PARAMETER).path(ARGS);
+                final byte[] returnValue = SampleJson.toBytes(call.path(RETURN_VALUE));
+
+                // The last method call with the same parameters wins.
+                returnValues.computeIfAbsent(samplerId, id -> new HashMap<>()).put(args, returnValue);
+            }
+        });
+
+        returnValues.replaceAll((samplerId, calls) -> Collections.unmodifiableMap(calls));
+
+        return new ReplayIndex(Collections.unmodifiableMap(returnValues));
+    }
+
+    /**
+     * @param samplerFixture A {@link SamplerFixture}, that defines samplers
+     * @return The ids of all samplers, that are defined by samplerFixture
+     */
+    public static Set<String> getDeclaredSamplerIds(final SamplerFixture samplerFixture) {
+        try {
+            samplerFixture.defineSamplers();
+
+            return SampleRepository.getInstance().getSamples().stream()
+                    .map(SampleDefinition::getSampleId)
+                    .collect(Collectors.toSet());
+        } finally {
+            Sampler.clear();
+        }
+    }
+
+    /**
+     * @param samplerId The id of a sampler
+     * @param argsJson  The parameters of the method call as a JSON-array, as they have been recorded. They are
+     *                  compared by their JSON, not by the matchers of the sampler.
+     * @return The recorded return value in JSON-format, or null if no method call has been recorded for the parameters.
+     * If the parameters have been recorded more than once, the last recorded return value is returned.
+     * @throws IOException if argsJson is not valid JSON
+     */
+    public byte[] getReturnValue(final String samplerId, final String argsJson) throws IOException {
+        final Map<JsonNode, byte[]> calls = returnValues.get(samplerId);
+
+        if (calls == null) {
+            return null;
+        }
+
+        return calls.get(OBJECT_MAPPER.readTree(argsJson));
+    }
+
+    /**
+     * @return The ids of all samplers, that have been loaded.
+     */
+    public Set<String> getSamplerIds() {
+        return returnValues.keySet();
+    }
+
+    /**
+     * @return The number of method calls, that have been loaded.
+     */
+    public int size() {
+        return returnValues.values().stream().mapToInt(Map::size).sum();
+    }
+}
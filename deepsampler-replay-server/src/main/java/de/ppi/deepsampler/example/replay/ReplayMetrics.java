@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import de.ppi.deepsampler.example.recorder.source.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency of a {@link ReplayServer}. The counters are updated by all request threads concurrently, so
+ * they are accumulated in {@link LongAdder}s, which don't block each other. The metrics are published via JMX by the
+ * {@link ReplayServer}.
+ */
+public class ReplayMetrics implements ReplayMetricsMXBean {
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder badRequests = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * @param hit          true if a recorded return value has been sent
+     * @param latencyNanos The time that has been needed to find the response, without sending it
+     */
+    void record(final boolean hit, final long latencyNanos) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+
+        latencies.record(latencyNanos);
+    }
+
+    /**
+     * @param latencyNanos The time that has been needed to reject the request, without sending the response
+     */
+    void recordBadRequest(final long latencyNanos) {
+        badRequests.increment();
+        latencies.record(latencyNanos);
+    }
+
+    @Override
+    public long getRequests() {
+        return getHits() + getMisses() + getBadRequests();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of requests, that have been rejected, because they are not a GET-request, or because the
+     * parameters are not valid JSON.
+     */
+    @Override
+    public long getBadRequests() {
+        return badRequests.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latencies.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return latencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return latencies.getBuckets();
+    }
+
+    /**
+     * @return The mean number of requests per second since the {@link ReplayServer} has been started.
+     */
+    @Override
+    public double getThroughput() {
+        final double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds == 0 ? 0 : getRequests() / seconds;
+    }
+
+    /**
+     * @return All metrics as a JSON-object
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"requests\":%d,\"hits\":%d,\"misses\":%d,\"badRequests\":%d,\"meanLatencyMillis\":%.3f,\"maxLatencyMillis\":%.3f,\"throughput\":%.1f}",
+                getRequests(), getHits(), getMisses(), getBadRequests(), getMeanLatencyMillis(), getMaxLatencyMillis(), getThroughput());
+    }
+}
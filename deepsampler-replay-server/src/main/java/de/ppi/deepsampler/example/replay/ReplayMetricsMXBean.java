@@ -0,0 +1,33 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import de.ppi.deepsampler.example.recorder.source.LatencyHistogram;
+
+/**
+ * The JMX-view of the {@link ReplayMetrics} of a {@link ReplayServer}.
+ */
+public interface ReplayMetricsMXBean {
+
+    long getRequests();
+
+    long getHits();
+
+    long getMisses();
+
+    long getBadRequests();
+
+    double getMeanLatencyMillis();
+
+    double getMaxLatencyMillis();
+
+    /**
+     * @return The latencies as a histogram (see {@link LatencyHistogram#getBuckets()})
+     */
+    long[] getLatencyHistogram();
+
+    double getThroughput();
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.ppi.deepsampler.example.recorder.source.JmxSampleMetrics;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import de.ppi.deepsampler.persistence.error.PersistenceException;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A standalone server, that replays recorded samples over HTTP, e.g. for manual tests of a frontend, or for tests
+ * that run in another process.
+ * <p>
+ * The server answers the following requests:
+ * <ul>
+ *     <li>GET /samples/{samplerId}?args={JSON-array}: The recorded return value of the sampler for the passed
+ *     parameters, or 404 if nothing has been recorded for these parameters. The parameters are written as they appear
+ *     in the sample file, e.g. /samples/loadPerson?args=[1]. Parameters, that are not valid JSON or not correctly
+ *     URL-encoded, are answered with 400.</li>
+ *     <li>GET /metrics: The throughput and the latency of the server as JSON (see {@link ReplayMetrics})</li>
+ * </ul>
+ * The {@link ReplayMetrics} are also published via JMX as <code>de.ppi.deepsampler:type=ReplayServer,port={port}</code>.
+ * The connections are handled by the non-blocking selector of the JDK's {@link HttpServer}, the requests are answered
+ * concurrently by a fixed pool of threads. All samples are held in a {@link ReplayIndex}, so requests don't touch the
+ * sample file.
+ * <p>
+ * The {@link ReplayIndex} can be replaced while the server is running, e.g. by a {@link SampleFileWatcher} if the
+ * sample file has been changed. Each request reads the active {@link ReplayIndex} only once, so it is answered either
+ * completely by the old or completely by the new samples, and it is never blocked by the replacement.
+ */
+public class ReplayServer implements Closeable {
+
+    public static final String SAMPLES_PATH = "/samples/";
+    public static final String METRICS_PATH = "/metrics";
+
+    private static final String ARGS_PARAMETER = "args=";
+    private static final String NO_ARGS = "[]";
+    private static final int DEFAULT_PORT = 8080;
+
+    private final AtomicReference<ReplayIndex> replayIndex;
+    private final ReplayMetrics metrics = new ReplayMetrics();
+    private final ExecutorService executor;
+    private final HttpServer httpServer;
+
+    private ReplayServer(final ReplayIndex replayIndex, final InetSocketAddress address, final int threads) throws IOException {
+        this.replayIndex = new AtomicReference<>(replayIndex);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.httpServer = HttpServer.create(address, 0);
+
+        httpServer.createContext(SAMPLES_PATH, this::replaySample);
+        httpServer.createContext(METRICS_PATH, this::sendMetrics);
+        httpServer.setExecutor(executor);
+    }
+
+    /**
+     * Starts a {@link ReplayServer}.
+     *
+     * @param replayIndex The samples, that are served
+     * @param address     The address of the server. If the port is 0, a free port is chosen.
+     * @param threads     The number of threads, that answer requests concurrently
+     * @return The started {@link ReplayServer}
+     * @throws IOException if the server cannot be bound to address
+     */
+    public static ReplayServer start(final ReplayIndex replayIndex, final InetSocketAddress address, final int threads) throws IOException {
+        final ReplayServer replayServer = new ReplayServer(replayIndex, address, threads);
+        replayServer.httpServer.start();
+        replayServer.registerMetrics();
+
+        return replayServer;
+    }
+
+    /**
+     * @return The address, the server is bound to, including the chosen port, if the server has been started with port 0.
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public ReplayIndex getReplayIndex() {
+        return replayIndex.get();
+    }
+
+    /**
+     * Replaces the samples, that are served. Requests, that are currently answered, still use the previous samples.
+     *
+     * @param newReplayIndex The samples, that are served from now on
+     */
+    public void replaceReplayIndex(final ReplayIndex newReplayIndex) {
+        replayIndex.set(newReplayIndex);
+    }
+
+    public ReplayMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the server. Requests, that are currently answered, are cancelled.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdown();
+        unregisterMetrics();
+    }
+
+    /**
+     * @return The name, under which the {@link ReplayMetrics} of this server are published via JMX.
+     */
+    public ObjectName getMetricsObjectName() {
+        try {
+            return new ObjectName(JmxSampleMetrics.DOMAIN + ":type=ReplayServer,port=" + getAddress().getPort());
+        } catch (JMException e) {
+            throw new PersistenceException("The metrics of the replay server cannot be published via JMX.", e);
+        }
+    }
+
+    private void registerMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, getMetricsObjectName());
+        } catch (JMException e) {
+            close();
+            throw new PersistenceException("The metrics of the replay server cannot be published via JMX.", e);
+        }
+    }
+
+    private void unregisterMetrics() {
+        try {
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(getMetricsObjectName())) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(getMetricsObjectName());
+            }
+        } catch (JMException e) {
+            throw new PersistenceException("The metrics of the replay server could not be removed from JMX.", e);
+        }
+    }
+
+    private void replaySample(final HttpExchange exchange) throws IOException {
+        final long startNanos = System.nanoTime();
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                metrics.recordBadRequest(System.nanoTime() - startNanos);
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // The path is decoded by the URI, so a "+" in a sampler id stays a "+". Only the query is form-encoded.
+            final String samplerId = exchange.getRequestURI().getPath().substring(SAMPLES_PATH.length());
+            final byte[] returnValue;
+
+            try {
+                returnValue = replayIndex.get().getReturnValue(samplerId, getArgs(exchange.getRequestURI().getRawQuery()));
+            } catch (IOException | IllegalArgumentException e) {
+                // IllegalArgumentException is thrown by URLDecoder, if the query contains an invalid escape sequence.
+                metrics.recordBadRequest(System.nanoTime() - startNanos);
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            // Each request is counted before the response is sent, so a client, that has received the response,
+            // always finds it in the metrics.
+            metrics.record(returnValue != null, System.nanoTime() - startNanos);
+
+            if (returnValue == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            sendJson(exchange, returnValue);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendMetrics(final HttpExchange exchange) throws IOException {
+        try {
+            sendJson(exchange, metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendJson(final HttpExchange exchange, final byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static String getArgs(final String rawQuery) throws UnsupportedEncodingException {
+        if (rawQuery != null) {
+            for (final String parameter : rawQuery.split("&")) {
+                if (parameter.startsWith(ARGS_PARAMETER)) {
+                    return decode(parameter.substring(ARGS_PARAMETER.length()));
+                }
+            }
+        }
+
+        return NO_ARGS;
+    }
+
+    private static String decode(final String value) throws UnsupportedEncodingException {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Starts a {@link ReplayServer} on the loopback interface. The sample file is reloaded, whenever it is changed.
+     *
+     * @param args The path of the sample file, the class name of a {@link SamplerFixture}, that defines the samplers,
+     *             whose samples are served, and optionally the port (default 8080).
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ReplayServer <sample file> <SamplerFixture class> [port]");
+            System.exit(1);
+        }
+
+        final Path sampleFile = Paths.get(args[0]);
+        final SamplerFixture samplerFixture = (SamplerFixture) Class.forName(args[1]).getDeclaredConstructor().newInstance();
+        final int port = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+
+        final Set<String> samplerIds = ReplayIndex.getDeclaredSamplerIds(samplerFixture);
+        final ReplayIndex replayIndex = ReplayIndex.load(sampleFile, samplerIds);
+        final ReplayServer replayServer = start(replayIndex, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                Runtime.getRuntime().availableProcessors());
+        final SampleFileWatcher sampleFileWatcher = SampleFileWatcher.watch(sampleFile, samplerIds, replayServer::replaceReplayIndex);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sampleFileWatcher.close();
+            replayServer.close();
+        }));
+
+        System.out.println("Replaying " + replayIndex.size() + " samples of " + replayIndex.getSamplerIds()
+                + " on http://" + replayServer.getAddress().getHostString() + ":" + replayServer.getAddress().getPort());
+    }
+}
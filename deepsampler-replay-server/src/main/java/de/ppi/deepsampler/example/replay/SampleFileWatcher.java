@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a sample file and reloads it, whenever it has been changed, e.g. if new samples have been recorded while a
+ * {@link ReplayServer} is running.
+ * <p>
+ * The sample file is reloaded in a background thread. The new {@link ReplayIndex} is passed to the listener only after
+ * it has been loaded completely, so a listener like {@link ReplayServer#replaceReplayIndex(ReplayIndex)} can swap
+ * the samples in one step. If the sample file cannot be loaded, e.g. because it is still being written, the previous
+ * samples stay active and the file is reloaded with its next change. Failures of the listener don't stop the watcher
+ * either. In both cases, the failure is available by {@link #getLastReloadFailure()}.
+ * <p>
+ * Sample files should be replaced by an atomic move, so that a half-written file is never seen by the watcher.
+ */
+public class SampleFileWatcher implements Closeable {
+
+    /**
+     * Recorders and editors often write a file in several steps. The file is reloaded only after no further changes
+     * have been reported for this time.
+     */
+    private static final long QUIET_PERIOD_MILLIS = 100;
+
+    private final Path sampleFile;
+    private final Set<String> samplerIds;
+    private final Consumer<ReplayIndex> reloadListener;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    private volatile Exception lastReloadFailure;
+
+    private SampleFileWatcher(final Path sampleFile, final Set<String> samplerIds, final Consumer<ReplayIndex> reloadListener) throws IOException {
+        this.sampleFile = sampleFile.toAbsolutePath();
+        this.samplerIds = samplerIds;
+        this.reloadListener = reloadListener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watcherThread = new Thread(this::watch, "deepsampler-sample-file-watcher");
+
+        this.sampleFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching a sample file.
+     *
+     * @param sampleFile     The sample file in JSON-format
+     * @param samplerIds     The ids of the samplers, whose samples are loaded
+     * @param reloadListener Receives the completely loaded {@link ReplayIndex} after each change of sampleFile
+     * @return The started {@link SampleFileWatcher}
+     * @throws IOException if the directory of sampleFile cannot be watched
+     */
+    public static SampleFileWatcher watch(final Path sampleFile, final Set<String> samplerIds,
+                                          final Consumer<ReplayIndex> reloadListener) throws IOException {
+        final SampleFileWatcher sampleFileWatcher = new SampleFileWatcher(sampleFile, samplerIds, reloadListener);
+        sampleFileWatcher.watcherThread.start();
+
+        return sampleFileWatcher;
+    }
+
+    /**
+     * @return The reason, why the last reload has failed, either while the sample file has been loaded or while the new
+     * {@link ReplayIndex} has been passed to the listener, or null if the last reload has succeeded.
+     */
+    public Exception getLastReloadFailure() {
+        return lastReloadFailure;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // The watcher thread stops anyway, since it is interrupted.
+        }
+
+        watcherThread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean sampleFileChanged = pollChanges(watchService.take());
+
+                WatchKey watchKey;
+                while ((watchKey = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    sampleFileChanged |= pollChanges(watchKey);
+                }
+
+                if (sampleFileChanged) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher has been closed.
+        }
+    }
+
+    private boolean pollChanges(final WatchKey watchKey) {
+        boolean sampleFileChanged = false;
+
+        for (final WatchEvent<?> event : watchKey.pollEvents()) {
+            sampleFileChanged |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || sampleFile.getFileName().equals(event.context());
+        }
+
+        watchKey.reset();
+
+        return sampleFileChanged;
+    }
+
+    private void reload() {
+        try {
+            reloadListener.accept(ReplayIndex.load(sampleFile, samplerIds));
+            lastReloadFailure = null;
+        } catch (RuntimeException e) {
+            lastReloadFailure = e;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022 PPI AG (Hamburg, Germany)
+ * This program is made available under the terms of the MIT License.
+ */
+
+package de.ppi.deepsampler.example.replay;
+
+import de.ppi.deepsampler.core.api.PersistentSample;
+import de.ppi.deepsampler.core.api.Sampler;
+import de.ppi.deepsampler.examples.helloworld.PersonDao;
+import de.ppi.deepsampler.examples.helloworld.PersonDaoImpl;
+import de.ppi.deepsampler.junit.SamplerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static de.ppi.deepsampler.persistence.api.PersistentMatchers.anyRecordedInt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This test shows how recorded samples are replayed by a standalone {@link ReplayServer}.
+ */
+class ReplayServerTest {
+
+    public static final Path SAMPLE_FILE = Paths.get("./src/test/resources/de/ppi/deepsampler/example/replay/replaySamples.json");
+    public static final Path WATCHED_SAMPLE_FILE = Paths.get("./tmp/watchedSamples.json");
+
+    private ReplayServer replayServer;
+
+    /**
+     * The same {@link SamplerFixture}, that is used by tests, defines which samples are served by the {@link ReplayServer}.
+     */
+    public static class PersonDaoSamplerFixture implements SamplerFixture {
+
+        @Override
+        public void defineSamplers() {
+            final PersonDao personDaoSampler = Sampler.prepare(PersonDaoImpl.class);
+            PersistentSample.of(personDaoSampler.loadPerson(anyRecordedInt())).hasId("loadPerson");
+        }
+    }
+
+    @BeforeEach
+    void startReplayServer() throws IOException {
+        // (1) The sample file is loaded once. All requests are answered from memory.
+        final ReplayIndex replayIndex = ReplayIndex.load(SAMPLE_FILE, new PersonDaoSamplerFixture());
+        replayServer = ReplayServer.start(replayIndex, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+    }
+
+    @AfterEach
+    void stopReplayServer() {
+        replayServer.close();
+    }
+
+    @Test
+    void recordedReturnValuesAreReplayed() throws IOException {
+        // 🧪 WHEN
+        final HttpURLConnection connection = get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + encode("[ 2 ]"));
+
+        // 🔬 THEN
+        // (2) The return value is sent as it has been recorded.
+        assertEquals(200, connection.getResponseCode());
+        assertThat(read(connection)).contains("\"0$name\":\"William Riker\"");
+    }
+
+    @Test
+    void samplesThatHaveNotBeenRecordedAreNotFound() throws IOException {
+        // 🧪 WHEN
+        final int unknownParameter = get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + encode("[3]")).getResponseCode();
+        // (3) "loadFriend" has been recorded, but it is not defined by the SamplerFixture.
+        final int undefinedSampler = get(ReplayServer.SAMPLES_PATH + "loadFriend?args=" + encode("[2]")).getResponseCode();
+
+        // 🔬 THEN
+        assertEquals(404, unknownParameter);
+        assertEquals(404, undefinedSampler);
+    }
+
+    @Test
+    void parametersThatAreNotValidJsonAreCountedAsBadRequests() throws IOException {
+        // 🧪 WHEN
+        final int invalidParameter = get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + encode("[1")).getResponseCode();
+
+        // 🔬 THEN
+        assertEquals(400, invalidParameter);
+        assertThat(read(get(ReplayServer.METRICS_PATH))).contains("\"requests\":1", "\"badRequests\":1");
+    }
+
+    @Test
+    void objectParametersAreMatchedRegardlessOfTheOrderOfTheirFields() throws IOException {
+        // 👉 GIVEN
+        // (4) A sampler id, that contains a "+", has been recorded with an object as parameter.
+        final String sampleJson = "{\"id\":\"objectParameters\",\"sampleMethodToSampleMap\":{\"find+Person\":{\"callMap\":["
+                + "{\"parameter\":{\"args\":[{\"name\":\"Data\",\"id\":7}]},\"returnValue\":\"Lt. Commander Data\"}]}}}";
+        replayServer.replaceReplayIndex(ReplayIndex.load(new ByteArrayInputStream(sampleJson.getBytes(StandardCharsets.UTF_8)),
+                Collections.singleton("find+Person")));
+
+        // 🧪 WHEN
+        // (5) The path is decoded as a path, so the "+" is not turned into a space. The fields of the requested object
+        // are written in another order.
+        final HttpURLConnection connection = get(ReplayServer.SAMPLES_PATH + "find+Person?args=" + encode("[{\"id\":7,\"name\":\"Data\"}]"));
+
+        // 🔬 THEN
+        assertEquals(200, connection.getResponseCode());
+        assertThat(read(connection)).isEqualTo("\"Lt. Commander Data\"");
+    }
+
+    @Test
+    void requestsAreAnsweredConcurrently() throws Exception {
+        // 👉 GIVEN
+        final ExecutorService clients = Executors.newFixedThreadPool(8);
+        final List<Future<Integer>> responses = new ArrayList<>();
+
+        // 🧪 WHEN
+        try {
+            for (int i = 0; i < 200; i++) {
+                final String args = encode("[" + (i % 2 + 1) + "]");
+                responses.add(clients.submit(() -> get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + args).getResponseCode()));
+            }
+
+            for (final Future<Integer> response : responses) {
+                assertEquals(200, response.get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        // 🔬 THEN
+        // (6) The metrics count every request, that has been answered by any thread.
+        final HttpURLConnection connection = get(ReplayServer.METRICS_PATH);
+        assertThat(read(connection)).contains("\"requests\":200", "\"hits\":200", "\"misses\":0");
+        assertThat(replayServer.getMetrics().getMaxLatencyMillis()).isGreaterThan(0);
+
+        // (7) The same metrics are published via JMX.
+        assertEquals(200L, ManagementFactory.getPlatformMBeanServer().getAttribute(replayServer.getMetricsObjectName(), "Hits"));
+    }
+
+    @Test
+    void changedSampleFilesAreReloaded() throws Exception {
+        // 👉 GIVEN
+        // (8) The server replays a sample file, that is watched for changes.
+        Files.createDirectories(WATCHED_SAMPLE_FILE.getParent());
+        Files.copy(SAMPLE_FILE, WATCHED_SAMPLE_FILE, StandardCopyOption.REPLACE_EXISTING);
+        replayServer.replaceReplayIndex(ReplayIndex.load(WATCHED_SAMPLE_FILE, new PersonDaoSamplerFixture()));
+
+        try (SampleFileWatcher sampleFileWatcher = SampleFileWatcher.watch(WATCHED_SAMPLE_FILE,
+                Collections.singleton("loadPerson"), replayServer::replaceReplayIndex)) {
+
+            // 🧪 WHEN
+            // (9) A new recording replaces the sample file.
+            recordNewSamples("Beverly Crusher");
+
+            // 🔬 THEN
+            // (10) The new samples are replayed as soon as they have been loaded completely. Until then, the old samples
+            // are replayed.
+            String person = read(get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + encode("[1]")));
+            for (int i = 0; i < 100 && !person.contains("Beverly Crusher"); i++) {
+                assertThat(person).contains("Jean-Luc Picard");
+                Thread.sleep(100);
+                person = read(get(ReplayServer.SAMPLES_PATH + "loadPerson?args=" + encode("[1]")));
+            }
+
+            assertThat(person).contains("Beverly Crusher");
+            assertThat(sampleFileWatcher.getLastReloadFailure()).isNull();
+        }
+    }
+
+    @Test
+    void failingListenersDoNotStopTheWatcher() throws Exception {
+        // 👉 GIVEN
+        Files.createDirectories(WATCHED_SAMPLE_FILE.getParent());
+        Files.copy(SAMPLE_FILE, WATCHED_SAMPLE_FILE, StandardCopyOption.REPLACE_EXISTING);
+
+        // (11) The first reload fails in the listener.
+        final AtomicInteger reloads = new AtomicInteger();
+        final Consumer<ReplayIndex> failingListener = replayIndex -> {
+            if (reloads.incrementAndGet() == 1) {
+                throw new IllegalStateException("The first reload fails.");
+            }
+        };
+
+        try (SampleFileWatcher sampleFileWatcher = SampleFileWatcher.watch(WATCHED_SAMPLE_FILE,
+                Collections.singleton("loadPerson"), failingListener)) {
+
+            // 🧪 WHEN
+            recordNewSamples("Beverly Crusher");
+            waitUntil(() -> sampleFileWatcher.getLastReloadFailure() != null);
+            final Exception firstReloadFailure = sampleFileWatcher.getLastReloadFailure();
+
+            recordNewSamples("Deanna Troi");
+            waitUntil(() -> reloads.get() == 2);
+
+            // 🔬 THEN
+            // (12) The failure has been recorded, and the watcher has reloaded the next change anyway.
+            assertThat(firstReloadFailure).isInstanceOf(IllegalStateException.class);
+            assertEquals(2, reloads.get());
+            assertThat(sampleFileWatcher.getLastReloadFailure()).isNull();
+        }
+    }
+
+    /**
+     * A new recording replaces the watched sample file. It is written to a temporary file first and then moved, so the
+     * watcher never sees a half-written file.
+     */
+    private static void recordNewSamples(final String name) throws IOException {
+        final Path newRecording = Paths.get("./tmp/watchedSamples.json.tmp");
+        final String newSamples = new String(Files.readAllBytes(SAMPLE_FILE), StandardCharsets.UTF_8)
+                .replace("Jean-Luc Picard", name);
+        Files.write(newRecording, newSamples.getBytes(StandardCharsets.UTF_8));
+        Files.move(newRecording, WATCHED_SAMPLE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void waitUntil(final BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private HttpURLConnection get(final String path) throws IOException {
+        final InetSocketAddress address = replayServer.getAddress();
+        return (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), path).openConnection();
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = connection.getInputStream()) {
+            final byte[] buffer = new byte[4096];
+            int length;
+
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+        }
+
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String encode(final String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+}